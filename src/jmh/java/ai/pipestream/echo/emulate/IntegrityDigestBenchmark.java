@@ -0,0 +1,53 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.IntegrityConfig.Mode;
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import com.google.protobuf.Any;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * What integrity digests add over plain passthrough, per document: compare
+ * {@link #passthrough} with {@link #verifyAndStamp}. Documents are padded ropes, as the
+ * raw path sees them when a large body arrives in several transport buffers.
+ */
+@State(Scope.Benchmark)
+public class IntegrityDigestBenchmark {
+
+    /** 1 KiB, 64 KiB, 1 MiB, 16 MiB, 256 MiB. */
+    @Param({"1024", "65536", "1048576", "16777216", "268435456"})
+    public int docBytes;
+
+    private final RawPayloadProcessor passthrough = new EchoPassthroughProcessor();
+    private final RawPayloadProcessor verifyAndStamp =
+            new IntegrityCheckingProcessor(new EchoPassthroughProcessor(), Mode.VERIFY_AND_STAMP, true);
+    private Any stamped;
+
+    @Setup
+    public void setUp() throws Exception {
+        PipeStream stream = PipeStream.newBuilder()
+                .setStreamId("bench-stream")
+                .setDocument(PipeDoc.newBuilder().setDocId("bench-" + docBytes))
+                .build();
+        Any packed = Any.pack(stream);
+        stamped = packed.toBuilder()
+                .setValue(IntegrityCheckingProcessor.stamp(PayloadResizingProcessor.pad(packed.getValue(), docBytes)))
+                .build();
+    }
+
+    @Benchmark
+    public Any passthrough() throws Exception {
+        return passthrough.process(stamped);
+    }
+
+    @Benchmark
+    public Any verifyAndStamp() throws Exception {
+        return verifyAndStamp.process(stamped);
+    }
+}
@@ -0,0 +1,54 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoProcessor;
+import ai.pipestream.echo.load.BenchDocuments;
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of each step the typed path adds around a document: {@link EchoProcessor},
+ * {@code Any.pack} and unpacking. Run with {@code -prof gc} (the build default) to
+ * get allocation per operation alongside throughput.
+ */
+@State(Scope.Benchmark)
+public class PayloadCodecBenchmark {
+
+    /** 1 KiB, 64 KiB, 1 MiB, 16 MiB, 256 MiB. */
+    @Param({"1024", "65536", "1048576", "16777216", "268435456"})
+    public int docBytes;
+
+    private final EchoProcessor processor = new EchoProcessor();
+    private PipeStream stream;
+    private Any packed;
+
+    @Setup
+    public void setUp() {
+        stream = BenchDocuments.pipeStream(docBytes);
+        packed = Any.pack(stream);
+    }
+
+    @Benchmark
+    public PipeStream echoProcess() {
+        return processor.process(stream);
+    }
+
+    @Benchmark
+    public Any pack() {
+        return Any.pack(stream);
+    }
+
+    /**
+     * Parses the packed value directly: {@code Any.unpack} caches its result on the
+     * {@code Any}, so after the first call it would only measure a cache hit.
+     */
+    @Benchmark
+    public PipeStream unpack() throws InvalidProtocolBufferException {
+        return PipeStream.parseFrom(packed.getValue());
+    }
+}
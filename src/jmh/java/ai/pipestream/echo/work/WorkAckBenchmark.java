@@ -0,0 +1,73 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.EchoProcessor;
+import ai.pipestream.echo.load.BenchDocuments;
+import ai.pipestream.module.work.v1.ProcessingStatus;
+import ai.pipestream.module.work.v1.WorkAck;
+import ai.pipestream.module.work.v1.WorkRequest;
+import ai.pipestream.module.work.v1.WorkUnit;
+import com.google.protobuf.Any;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Full worker-side cost of one work unit, wire bytes in to wire bytes out: decode the
+ * {@code WorkResponse} through {@link AliasingWorkMarshaller}, process, build the
+ * {@code WorkAck} and serialize it. {@code typed} unpacks to {@code PipeStream} for
+ * {@link EchoProcessor} and repacks; {@code raw} hands the {@code Any} to
+ * {@link EchoPassthroughProcessor} as {@link RawWorkerLoop} does.
+ */
+@State(Scope.Benchmark)
+public class WorkAckBenchmark {
+
+    /** 1 KiB, 64 KiB, 1 MiB, 16 MiB, 256 MiB. */
+    @Param({"1024", "65536", "1048576", "16777216", "268435456"})
+    public int docBytes;
+
+    /** Aliasing threshold in bytes; 0 aliases everything, as the 1M default does for large docs. */
+    @Param({"1048576"})
+    public long aliasingThreshold;
+
+    private final EchoProcessor echo = new EchoProcessor();
+    /**
+     * Always re-packs: {@code RawPayloadProcessor.unpacking} would hand the identity
+     * result back as the original {@code Any} and skip the very cost measured here.
+     */
+    private final RawPayloadProcessor typed = payload -> Any.pack(echo.process(payload.unpack(PipeStream.class)));
+    private final RawPayloadProcessor raw = new EchoPassthroughProcessor();
+    private AliasingWorkMarshaller marshaller;
+    private byte[] wire;
+
+    @Setup
+    public void setUp() {
+        wire = BenchDocuments.workResponse(BenchDocuments.pipeStream(docBytes));
+        marshaller = new AliasingWorkMarshaller(aliasingThreshold);
+    }
+
+    @Benchmark
+    public byte[] typed() throws Exception {
+        return convert(typed);
+    }
+
+    @Benchmark
+    public byte[] raw() throws Exception {
+        return convert(raw);
+    }
+
+    private byte[] convert(RawPayloadProcessor processor) throws Exception {
+        WorkUnit unit = marshaller.parse(BenchDocuments.knownLength(wire)).getWorkUnit();
+        Any updated = processor.process(unit.getPayload());
+        return WorkRequest.newBuilder()
+                .setAck(WorkAck.newBuilder()
+                        .setWorkUnitId(unit.getWorkUnitId())
+                        .setStatus(ProcessingStatus.PROCESSING_STATUS_SUCCESS)
+                        .setUpdatedPayload(updated))
+                .build()
+                .toByteArray();
+    }
+}
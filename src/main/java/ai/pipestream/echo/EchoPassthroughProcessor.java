@@ -0,0 +1,15 @@
+package ai.pipestream.echo;
+
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import com.google.protobuf.Any;
+
+/**
+ * Identity processor over the raw {@code WorkUnit} payload: the served {@code Any}
+ * goes straight back into the ack, so the {@code PipeStream} is never parsed.
+ */
+public final class EchoPassthroughProcessor implements RawPayloadProcessor {
+    @Override
+    public Any process(Any payload) {
+        return payload;
+    }
+}
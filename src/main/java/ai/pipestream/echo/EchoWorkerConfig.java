@@ -1,49 +1,207 @@
 package ai.pipestream.echo;
 
 import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.emulate.EmulatingProcessors;
+import ai.pipestream.echo.emulate.Distribution;
+import ai.pipestream.echo.emulate.EmulationConfig;
+import ai.pipestream.echo.emulate.IntegrityCheckingProcessor;
+import ai.pipestream.echo.work.PooledEngineClient;
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import ai.pipestream.echo.work.RawWorkerConfig;
+import ai.pipestream.echo.work.RawWorkerLoop;
+import ai.pipestream.echo.work.WorkStageTimers;
 import ai.pipestream.module.runtime.work.ModuleWorkEngineClient;
 import ai.pipestream.module.runtime.work.ModuleWorkerLoop;
 import ai.pipestream.module.runtime.work.RampController;
 import ai.pipestream.module.runtime.work.WorkerLoopConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
 
 @ApplicationScoped
 public class EchoWorkerConfig {
 
+    private static final Logger LOG = Logger.getLogger(EchoWorkerConfig.class);
+
     @Inject
     ModuleWorkEngineClient engineClient;
 
+    @Inject
+    RawWorkerConfig rawWorkerConfig;
+
+    @Inject
+    WorkerLoopConfig workerLoopConfig;
+
+    @Inject
+    EmulationConfig emulationConfig;
+
+    @Inject
+    IntegrityConfig integrityConfig;
+
+    @Inject
+    EngineReadiness engineReadiness;
+
+    @Inject
+    EngineChannels engineChannels;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    Instance<ModuleWorkerLoop<PipeStream>> moduleWorkerLoop;
+
+    @Inject
+    Instance<RawWorkerLoop> rawWorkerLoop;
+
+    private volatile Thread starter;
+    private PooledEngineClient enginePool;
+    private RawPayloadProcessor rawProcessor;
+
+    /** The pooled engine client when {@code pipestream.echo.engine-pool.*} asks for one. */
+    synchronized ModuleWorkEngineClient workEngineClient() {
+        if (!engineChannels.enabled()) {
+            return engineClient;
+        }
+        if (enginePool == null) {
+            enginePool = engineChannels.createPool();
+        }
+        return enginePool;
+    }
+
+    /**
+     * Echo's passthrough wrapped in the configured emulation modes, and outside them the
+     * integrity check: digests are verified as the document arrived and stamped as it
+     * leaves. Built on the startup thread by {@link #onStart}, so a bad setting fails startup.
+     */
+    synchronized RawPayloadProcessor rawProcessor() {
+        if (rawProcessor == null) {
+            RawPayloadProcessor processor = EmulatingProcessors.wrap(new EchoPassthroughProcessor(), emulationConfig);
+            if (integrityConfig.mode() != IntegrityConfig.Mode.NONE) {
+                LOG.infof("Integrity digests: %s%s", integrityConfig.mode(),
+                        integrityConfig.required() ? " (digest required)" : "");
+                processor = new IntegrityCheckingProcessor(processor, integrityConfig.mode(), integrityConfig.required());
+            }
+            rawProcessor = processor;
+        }
+        return rawProcessor;
+    }
+
     @Produces
     @Singleton
     ModuleWorkerLoop<PipeStream> echoWorkerLoop(WorkerLoopConfig config, RampController rampController) {
         return new ModuleWorkerLoop<>(
                 PipeStream.class,
                 new EchoProcessor(),
-                engineClient,
+                workEngineClient(),
                 config,
                 rampController);
     }
 
-    void onStart(@Observes StartupEvent ev, ModuleWorkerLoop<PipeStream> loop) {
-        // Small delay to ensure Stork/Consul and gRPC infra are fully ready
-        // in the SynchronizationContext.
-        new Thread(() -> {
+    @Produces
+    @Singleton
+    RawWorkerLoop echoRawWorkerLoop(WorkerLoopConfig config) {
+        return new RawWorkerLoop(rawProcessor(), workEngineClient(), config, rawWorkerConfig,
+                new WorkStageTimers(meterRegistry, config.moduleId()));
+    }
+
+    void onStart(@Observes StartupEvent ev) {
+        engineChannels.validate();
+        if (!rawWorkerConfig.enabled() && EmulatingProcessors.active(emulationConfig)) {
+            LOG.warn("pipestream.echo.emulate.* is ignored: it needs the raw worker loop");
+        }
+        if (!rawWorkerConfig.enabled() && integrityConfig.mode() != IntegrityConfig.Mode.NONE) {
+            LOG.warn("pipestream.echo.integrity.* is ignored: it needs the raw worker loop");
+        }
+        // Every delayed document would park a pooled platform thread, so the emulated
+        // module would top out at the worker count rather than at its latency.
+        if (rawWorkerConfig.enabled()
+                && emulationConfig.latency().distribution() != Distribution.Kind.NONE
+                && !rawWorkerConfig.virtualThreads()) {
+            throw new IllegalStateException("pipestream.echo.emulate.latency needs virtual-thread workers; "
+                    + "set pipestream.echo.raw-worker.virtual-threads=true");
+        }
+        if (rawWorkerConfig.enabled()) {
+            rawProcessor();
+        }
+        // Start as soon as the engine resolves through Stork/Consul and its channels are
+        // READY, rather than guessing with a fixed delay. The engine client (a pool needs
+        // resolved instances) is built only after resolution. On timeout start anyway:
+        // the loop has its own reconnect backoff.
+        starter = Thread.ofVirtual().name("echo-worker-start").start(() -> {
             try {
-                Thread.sleep(1000);
+                if (workerLoopConfig.enabled() && !engineReadiness.await(this::workEngineClient)) {
+                    LOG.warn("Engine not ready within the startup timeout; starting worker loop anyway");
+                }
+                startWorkerLoop(ev);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOG.error("Worker loop failed to start; echo is running without workers", e);
+            }
+        });
+    }
+
+    /**
+     * Starts the configured loop once its engine client can be built, retrying the
+     * client with the reconnect backoff (e.g. Consul has no engine instances yet).
+     * Anything else that stops the loop from starting is not retried.
+     */
+    private void startWorkerLoop(StartupEvent ev) throws InterruptedException {
+        awaitEngineClient();
+        if (rawWorkerConfig.enabled()) {
+            rawWorkerLoop.get().start();
+        } else {
+            moduleWorkerLoop.get().onStart(ev);
+        }
+    }
+
+    private void awaitEngineClient() throws InterruptedException {
+        Duration retry = workerLoopConfig.reconnectInitialDelay();
+        while (true) {
+            try {
+                workEngineClient();
+                return;
+            } catch (RuntimeException e) {
+                LOG.warnf("Engine client could not be built (%s); retrying in %s", e.getMessage(), retry);
+                Thread.sleep(retry.toMillis());
+                Duration doubled = retry.multipliedBy(2);
+                retry = doubled.compareTo(workerLoopConfig.reconnectMaxDelay()) < 0
+                        ? doubled
+                        : workerLoopConfig.reconnectMaxDelay();
+            }
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        Thread pending = starter;
+        if (pending != null) {
+            pending.interrupt();
+        }
+        if (rawWorkerConfig.enabled()) {
+            RawWorkerLoop.DrainResult drain = rawWorkerLoop.get().stop();
+            recordDrain("drained", drain.drained());
+            recordDrain("abandoned", drain.abandoned());
+        } else {
+            moduleWorkerLoop.get().onStop(ev);
+        }
+        synchronized (this) {
+            if (enginePool != null) {
+                enginePool.close();
             }
-            loop.onStart(ev);
-        }).start();
+        }
     }
 
-    void onStop(@Observes ShutdownEvent ev, ModuleWorkerLoop<PipeStream> loop) {
-        loop.onStop(ev);
+    private void recordDrain(String outcome, int units) {
+        meterRegistry.counter("echo.worker.shutdown.units",
+                "module", workerLoopConfig.moduleId(), "outcome", outcome).increment(units);
     }
 }
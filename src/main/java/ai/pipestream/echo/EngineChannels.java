@@ -0,0 +1,253 @@
+package ai.pipestream.echo;
+
+import ai.pipestream.echo.work.PooledEngineClient;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.quarkus.grpc.GlobalInterceptor;
+import io.smallrye.stork.Stork;
+import io.smallrye.stork.api.ServiceInstance;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the optional multi-channel engine pool. Channels are opened straight to the
+ * engine instances Stork resolves, each slot on the least-used instance, so a pool of
+ * N spreads worker streams over N connections and, with several engines, over those
+ * engines. A slot keeps its instance when it is recycled. Every {@code refresh-interval}
+ * the instances are re-resolved: slots whose engine is gone, or that crowd one engine
+ * while another has two fewer, are reopened elsewhere, so replaced and added engines
+ * are picked up. A {@code per-instance} pool keeps the size it was given at startup.
+ *
+ * <p>Pooled channels carry over what {@code quarkus.grpc.clients.engine.*} sets for
+ * the connection (keepalive, idle timeout, inbound limits, deadline) and the
+ * application's {@link GlobalInterceptor global interceptors}. TLS is not carried
+ * over: {@link #validate()} refuses to run the pool against a TLS engine client
+ * rather than silently connecting in plain text.
+ */
+@ApplicationScoped
+public class EngineChannels {
+
+    private static final Logger LOG = Logger.getLogger(EngineChannels.class);
+
+    private static final String ENGINE_CLIENT = "quarkus.grpc.clients.engine.";
+
+    @ConfigProperty(name = "quarkus.grpc.clients.engine.host", defaultValue = "engine")
+    String engineServiceName;
+
+    @Inject
+    EnginePoolConfig poolConfig;
+
+    @Inject
+    Config config;
+
+    @Inject
+    @Any
+    Instance<ClientInterceptor> interceptors;
+
+    /** Engine instance each pool slot is connected to. */
+    private final Map<Integer, ServiceInstance> slotInstances = new HashMap<>();
+    private List<ServiceInstance> resolved = List.of();
+    private long resolvedAtNanos;
+    private ScheduledExecutorService refresher;
+
+    boolean enabled() {
+        return poolConfig.size() > 0 || poolConfig.perInstance();
+    }
+
+    /**
+     * Fails fast when the pool is on but the engine client is configured for TLS,
+     * which pooled channels do not support yet.
+     */
+    void validate() {
+        if (!enabled()) {
+            return;
+        }
+        boolean tls = setting("plain-text", Boolean.class).map(plainText -> !plainText).orElse(false)
+                || setting("tls.enabled", Boolean.class).orElse(false)
+                || setting("tls-configuration-name", String.class).isPresent();
+        for (String name : config.getPropertyNames()) {
+            tls |= name.startsWith(ENGINE_CLIENT + "ssl.");
+        }
+        if (tls) {
+            throw new IllegalStateException("pipestream.echo.engine-pool is enabled but the engine client uses TLS; "
+                    + "pooled channels are plain-text only, so turn the pool off (size=0, per-instance=false)");
+        }
+    }
+
+    PooledEngineClient createPool() {
+        int size = poolConfig.perInstance() ? Math.max(1, instances(true).size()) : poolConfig.size();
+        PooledEngineClient.Selection strategy = poolConfig.selection();
+        List<ClientInterceptor> callInterceptors = callInterceptors();
+        LOG.infof("Engine channel pool: %d channels to service %s, %s selection, %d interceptors",
+                size, engineServiceName, strategy, callInterceptors.size());
+        PooledEngineClient pool = new PooledEngineClient(size, this::newChannel, strategy, callInterceptors);
+        long refreshMs = poolConfig.refreshInterval().toMillis();
+        if (refreshMs > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("echo-engine-pool-refresh").daemon(true).factory());
+            refresher.scheduleWithFixedDelay(() -> rebalance(pool), refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        }
+        return pool;
+    }
+
+    @PreDestroy
+    void stopRefresh() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /** Reopens slots whose engine is gone, or that crowd one engine while another is short. */
+    private synchronized void rebalance(PooledEngineClient pool) {
+        try {
+            List<ServiceInstance> live = instances(true);
+            for (int slot = 0; slot < pool.size(); slot++) {
+                ServiceInstance assigned = slotInstances.get(slot);
+                if (assigned == null || indexOf(live, assigned) < 0 || crowded(assigned, live)) {
+                    LOG.infof("Engine pool slot %d: moving off %s", slot,
+                            assigned == null ? "no instance" : assigned.getHost() + ":" + assigned.getPort());
+                    slotInstances.remove(slot);
+                    pool.recycle(slot);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warnf("Engine pool refresh failed (%s); keeping the current channels", e.getMessage());
+        }
+    }
+
+    private ManagedChannel newChannel(int slot) {
+        ServiceInstance instance = assign(slot);
+        ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forAddress(instance.getHost(), instance.getPort())
+                .usePlaintext()
+                .maxInboundMessageSize(setting("max-inbound-message-size", Integer.class).orElse(4 * 1024 * 1024));
+        setting("max-inbound-metadata-size", Integer.class).ifPresent(builder::maxInboundMetadataSize);
+        setting("keep-alive-time", Duration.class)
+                .ifPresent(time -> builder.keepAliveTime(time.toNanos(), TimeUnit.NANOSECONDS));
+        setting("keep-alive-timeout", Duration.class)
+                .ifPresent(timeout -> builder.keepAliveTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS));
+        setting("idle-timeout", Duration.class)
+                .ifPresent(timeout -> builder.idleTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS));
+        return builder.build();
+    }
+
+    /** Global interceptors, then the client deadline, applied to every pooled call. */
+    private List<ClientInterceptor> callInterceptors() {
+        List<ClientInterceptor> callInterceptors = new ArrayList<>();
+        interceptors.handles().forEach(handle -> {
+            if (handle.getBean().getBeanClass().isAnnotationPresent(GlobalInterceptor.class)) {
+                callInterceptors.add(handle.get());
+            }
+        });
+        setting("deadline", Duration.class).ifPresent(deadline -> callInterceptors.add(new ClientInterceptor() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+                    MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+                CallOptions options = callOptions.getDeadline() == null
+                        ? callOptions.withDeadlineAfter(deadline.toNanos(), TimeUnit.NANOSECONDS)
+                        : callOptions;
+                return next.newCall(method, options);
+            }
+        }));
+        return callInterceptors;
+    }
+
+    private <T> Optional<T> setting(String key, Class<T> type) {
+        return config.getOptionalValue(ENGINE_CLIENT + key, type);
+    }
+
+    /**
+     * The slot's engine instance: the one it already had while that is still resolved,
+     * otherwise the live instance with the fewest slots.
+     */
+    private synchronized ServiceInstance assign(int slot) {
+        ServiceInstance current = slotInstances.get(slot);
+        List<ServiceInstance> live = instances(false);
+        if (current != null && indexOf(live, current) < 0) {
+            // Gone from the cached list, or the cache is stale: ask Stork again.
+            live = instances(true);
+        }
+        if (live.isEmpty()) {
+            throw new IllegalStateException("No instances of engine service " + engineServiceName);
+        }
+        if (current != null && indexOf(live, current) >= 0) {
+            return current;
+        }
+        int[] slots = slotCounts(live, slot);
+        int least = 0;
+        for (int i = 1; i < slots.length; i++) {
+            if (slots[i] < slots[least]) {
+                least = i;
+            }
+        }
+        slotInstances.put(slot, live.get(least));
+        return live.get(least);
+    }
+
+    /** Whether {@code instance} holds two or more slots than the least-used live instance. */
+    private boolean crowded(ServiceInstance instance, List<ServiceInstance> live) {
+        int[] slots = slotCounts(live, -1);
+        int mine = slots[indexOf(live, instance)];
+        for (int count : slots) {
+            if (mine - count >= 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Slots per live instance, leaving out {@code excludedSlot}. */
+    private int[] slotCounts(List<ServiceInstance> live, int excludedSlot) {
+        int[] slots = new int[live.size()];
+        slotInstances.forEach((slot, instance) -> {
+            int index = indexOf(live, instance);
+            if (slot != excludedSlot && index >= 0) {
+                slots[index]++;
+            }
+        });
+        return slots;
+    }
+
+    /** Position of {@code instance} in {@code live} by address; Stork may re-create instance objects. */
+    private static int indexOf(List<ServiceInstance> live, ServiceInstance instance) {
+        for (int i = 0; i < live.size(); i++) {
+            if (live.get(i).getHost().equals(instance.getHost()) && live.get(i).getPort() == instance.getPort()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Engine instances, re-resolved through Stork when forced or older than the refresh interval. */
+    private synchronized List<ServiceInstance> instances(boolean force) {
+        if (force || resolved.isEmpty()
+                || System.nanoTime() - resolvedAtNanos >= poolConfig.refreshInterval().toNanos()) {
+            resolved = List.copyOf(Stork.getInstance()
+                    .getService(engineServiceName)
+                    .getInstances()
+                    .await().atMost(Duration.ofSeconds(10)));
+            resolvedAtNanos = System.nanoTime();
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,35 @@
+package ai.pipestream.echo;
+
+import ai.pipestream.echo.work.PooledEngineClient;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Optional multi-channel engine pool ({@link EngineChannels}). Off by default: echo
+ * then uses the single {@code @GrpcClient("engine")} channel.
+ */
+@ConfigMapping(prefix = "pipestream.echo.engine-pool")
+public interface EnginePoolConfig {
+
+    /** Channels in the pool; 0 keeps the single injected engine client. */
+    @WithDefault("0")
+    int size();
+
+    /** Size the pool to one channel per engine instance resolved at startup. */
+    @WithDefault("false")
+    boolean perInstance();
+
+    /**
+     * How often the engine instances are re-resolved through Stork. Slots whose engine
+     * has gone, or that crowd one engine while another has fewer, are then reopened on
+     * the least-used live instance.
+     */
+    @WithDefault("30s")
+    Duration refreshInterval();
+
+    /** How each new worker stream picks its channel: power-of-two or round-robin. */
+    @WithDefault("power-of-two")
+    PooledEngineClient.Selection selection();
+}
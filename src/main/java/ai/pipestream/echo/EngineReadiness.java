@@ -0,0 +1,144 @@
+package ai.pipestream.echo;
+
+import ai.pipestream.echo.work.PooledEngineClient;
+import ai.pipestream.module.runtime.work.ModuleWorkEngineClient;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.stork.Stork;
+import io.smallrye.stork.api.ServiceInstance;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Startup gate for the worker loop: waits until the engine resolves through Stork and
+ * every engine channel (each one of a pool) reports {@link ConnectivityState#READY},
+ * retrying with backoff up to {@code pipestream.echo.startup.engine-ready-timeout}.
+ */
+@ApplicationScoped
+public class EngineReadiness {
+
+    private static final Logger LOG = Logger.getLogger(EngineReadiness.class);
+
+    private static final Duration INITIAL_RETRY = Duration.ofMillis(50);
+    private static final Duration MAX_RETRY = Duration.ofSeconds(2);
+
+    @ConfigProperty(name = "quarkus.grpc.clients.engine.host", defaultValue = "engine")
+    String engineServiceName;
+
+    @ConfigProperty(name = "quarkus.grpc.clients.engine.name-resolver", defaultValue = "dns")
+    String nameResolver;
+
+    @Inject
+    StartupConfig startupConfig;
+
+    @Inject
+    MeterRegistry registry;
+
+    /**
+     * Blocks until the engine is reachable or the timeout passes. {@code engineClient}
+     * is asked for the client only once the engine resolves, since building a pooled
+     * client needs resolved instances; if building it fails, the next round retries.
+     *
+     * @return true if the engine became ready, false on timeout
+     */
+    public boolean await(Supplier<ModuleWorkEngineClient> engineClient) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + startupConfig.engineReadyTimeout().toNanos();
+        Duration retry = INITIAL_RETRY;
+        int attempts = 0;
+        boolean ready = false;
+        while (!ready && System.nanoTime() < deadline) {
+            attempts++;
+            ready = resolves() && channelsReady(client(engineClient), deadline);
+            if (!ready) {
+                Thread.sleep(retry.toMillis());
+                Duration doubled = retry.multipliedBy(2);
+                retry = doubled.compareTo(MAX_RETRY) < 0 ? doubled : MAX_RETRY;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Timer.builder("echo.worker.startup.engine.wait")
+                .description("Time from startup until the engine resolved and its channel was READY")
+                .tag("outcome", ready ? "ready" : "timeout")
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        LOG.infof("Engine %s %s after %d ms (%d attempts)", engineServiceName,
+                ready ? "ready" : "not ready", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), attempts);
+        return ready;
+    }
+
+    private boolean resolves() {
+        if (!"stork".equals(nameResolver)) {
+            return true;
+        }
+        try {
+            List<ServiceInstance> instances = Stork.getInstance()
+                    .getService(engineServiceName)
+                    .getInstances()
+                    .await().atMost(MAX_RETRY);
+            return !instances.isEmpty();
+        } catch (RuntimeException e) {
+            LOG.debugf("Engine %s not resolvable yet: %s", engineServiceName, e.getMessage());
+            return false;
+        }
+    }
+
+    private ModuleWorkEngineClient client(Supplier<ModuleWorkEngineClient> engineClient) {
+        try {
+            return engineClient.get();
+        } catch (RuntimeException e) {
+            LOG.debugf("Engine %s client not available yet: %s", engineServiceName, e.getMessage());
+            return null;
+        }
+    }
+
+    /** True once every channel the client spreads streams over is READY. */
+    private static boolean channelsReady(ModuleWorkEngineClient engineClient, long deadlineNanos)
+            throws InterruptedException {
+        List<ManagedChannel> channels;
+        if (engineClient == null) {
+            return false;
+        } else if (engineClient instanceof PooledEngineClient pooled) {
+            channels = pooled.channels();
+        } else if (engineClient.stub().getChannel() instanceof ManagedChannel managed) {
+            channels = List.of(managed);
+        } else {
+            // Intercepted or non-grpc-java channel: resolution is the best signal we have.
+            return true;
+        }
+        // Kick every channel into connecting first, so they come up in parallel.
+        List<ManagedChannel> pending = new ArrayList<>();
+        for (ManagedChannel channel : channels) {
+            if (channel.getState(true) != ConnectivityState.READY) {
+                pending.add(channel);
+            }
+        }
+        long waitUntil = Math.min(deadlineNanos, System.nanoTime() + MAX_RETRY.toNanos());
+        for (ManagedChannel channel : pending) {
+            ConnectivityState state = channel.getState(false);
+            if (state != ConnectivityState.READY) {
+                CountDownLatch changed = new CountDownLatch(1);
+                channel.notifyWhenStateChanged(state, changed::countDown);
+                changed.await(Math.max(0, waitUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        }
+        long ready = channels.stream().filter(c -> c.getState(false) == ConnectivityState.READY).count();
+        if (ready < channels.size()) {
+            LOG.debugf("Engine channels ready: %d of %d", ready, channels.size());
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package ai.pipestream.echo;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+/**
+ * Content digests checked against, or stamped for, other hops. Off by default. Unlike
+ * the {@code pipestream.echo.emulate.*} modes this is meant for production; it wraps the
+ * raw passthrough processor, so it needs {@code pipestream.echo.raw-worker.enabled=true}.
+ */
+@ConfigMapping(prefix = "pipestream.echo.integrity")
+public interface IntegrityConfig {
+
+    enum Mode {
+        NONE,
+        /** Fail documents whose digest does not match the one they carry. */
+        VERIFY,
+        /** Write the outgoing document's digest for downstream hops. */
+        STAMP,
+        VERIFY_AND_STAMP
+    }
+
+    @WithDefault("none")
+    Mode mode();
+
+    /** In the verify modes, also fail documents that carry no digest at all. */
+    @WithDefault("false")
+    boolean required();
+}
@@ -0,0 +1,18 @@
+package ai.pipestream.echo;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/** How echo waits for the engine before starting its worker loop. */
+@ConfigMapping(prefix = "pipestream.echo.startup")
+public interface StartupConfig {
+
+    /**
+     * Longest wait for the engine to resolve and its channels to reach READY; after
+     * it the loop starts anyway and relies on its own reconnect backoff.
+     */
+    @WithDefault("60s")
+    Duration engineReadyTimeout();
+}
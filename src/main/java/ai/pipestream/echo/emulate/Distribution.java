@@ -0,0 +1,108 @@
+package ai.pipestream.echo.emulate;
+
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.HistogramLogReader;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of per-document values for the emulation modes: delays in nanoseconds,
+ * sizes in bytes, work amounts. Every mode draws from the same small set of shapes
+ * so a profile measured from one module can drive any of them.
+ */
+@FunctionalInterface
+public interface Distribution {
+
+    /** How a {@link Distribution} is configured. */
+    enum Kind {
+        /** Mode off. */
+        NONE,
+        /** Always {@code value}. */
+        FIXED,
+        /** Uniform between {@code min} and {@code max}. */
+        UNIFORM,
+        /** Log-normal with the given {@code median} and shape {@code sigma}: a long right tail. */
+        LOG_NORMAL,
+        /** Values drawn with the frequencies of a recorded HdrHistogram log. */
+        REPLAY
+    }
+
+    long sample(RandomGenerator random);
+
+    /** Draws with the calling thread's random source. */
+    default long sample() {
+        return sample(ThreadLocalRandom.current());
+    }
+
+    static Distribution fixed(long value) {
+        return random -> value;
+    }
+
+    static Distribution uniform(long min, long max) {
+        if (max < min) {
+            throw new IllegalArgumentException("max " + max + " is below min " + min);
+        }
+        return random -> min == max ? min : random.nextLong(min, max + 1);
+    }
+
+    static Distribution logNormal(long median, double sigma) {
+        double mu = Math.log(Math.max(1, median));
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+
+    /** Samples with the frequencies recorded in {@code histogram}. */
+    static Distribution replay(Histogram histogram) {
+        List<Long> values = new ArrayList<>();
+        List<Long> cumulative = new ArrayList<>();
+        long total = 0;
+        for (HistogramIterationValue bucket : histogram.recordedValues()) {
+            total += bucket.getCountAddedInThisIterationStep();
+            values.add(histogram.highestEquivalentValue(bucket.getValueIteratedTo()));
+            cumulative.add(total);
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("histogram has no recorded values");
+        }
+        long[] valueAt = values.stream().mapToLong(Long::longValue).toArray();
+        long[] countUpTo = cumulative.stream().mapToLong(Long::longValue).toArray();
+        long count = total;
+        return random -> {
+            long rank = random.nextLong(count);
+            int index = Arrays.binarySearch(countUpTo, rank + 1);
+            return valueAt[index >= 0 ? index : -index - 1];
+        };
+    }
+
+    /** Merges every interval of an HdrHistogram log ({@code .hlog}) and replays it. */
+    static Distribution replay(Path hlog) {
+        try (HistogramLogReader reader = new HistogramLogReader(hlog.toFile())) {
+            Histogram merged = null;
+            EncodableHistogram interval;
+            while ((interval = reader.nextIntervalHistogram()) != null) {
+                if (!(interval instanceof Histogram histogram)) {
+                    throw new IllegalArgumentException(hlog + " holds " + interval.getClass().getSimpleName()
+                            + " intervals; replay needs an integer-valued Histogram log");
+                }
+                if (merged == null) {
+                    merged = histogram.copy();
+                } else {
+                    merged.add(histogram);
+                }
+            }
+            if (merged == null) {
+                throw new IllegalArgumentException("no histograms in " + hlog);
+            }
+            return replay(merged);
+        } catch (FileNotFoundException e) {
+            throw new IllegalArgumentException("histogram log not found: " + hlog, e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import ai.pipestream.module.work.v1.ProcessingStatus;
+import org.jboss.logging.Logger;
+
+/** Wraps echo's processor in whichever {@link EmulationConfig} modes are switched on. */
+public final class EmulatingProcessors {
+
+    private static final Logger LOG = Logger.getLogger(EmulatingProcessors.class);
+
+    private EmulatingProcessors() {
+    }
+
+    public static RawPayloadProcessor wrap(RawPayloadProcessor processor, EmulationConfig config) {
+        RawPayloadProcessor wrapped = processor;
+        Distribution delay = latency(config.latency());
+        if (delay != null) {
+            LOG.infof("Emulation: %s processing delay per document", config.latency().distribution());
+            wrapped = new LatencyInjectingProcessor(wrapped, delay);
+        }
+        EmulationConfig.Cpu cpu = config.cpu();
+        Distribution alloc = sizes(config.alloc(), "alloc");
+        if (!cpu.perKib().isZero() || !cpu.perDocument().isZero() || alloc != null) {
+            LOG.infof("Emulation: burning %s CPU per KiB + %s per document, %s allocation per document",
+                    cpu.perKib(), cpu.perDocument(), config.alloc().distribution());
+            wrapped = new ResourceBurningProcessor(wrapped, cpu.perKib().toNanos(), cpu.perDocument().toNanos(),
+                    alloc != null ? alloc : Distribution.fixed(0));
+        }
+        EmulationConfig.Resize resize = config.resize();
+        if (resize.mode() != EmulationConfig.Resize.Mode.NONE) {
+            Distribution target = sizes(resize, "resize");
+            if (resize.mode() == EmulationConfig.Resize.Mode.PAD && target == null) {
+                throw new IllegalStateException(
+                        "pipestream.echo.emulate.resize.mode=pad needs a resize.distribution");
+            }
+            LOG.infof("Emulation: %s outgoing documents (%s size)", resize.mode(), resize.distribution());
+            wrapped = new PayloadResizingProcessor(wrapped, resize.mode(), target);
+        }
+        EmulationConfig.Failure failure = config.failure();
+        if (failure.mode() != EmulationConfig.Failure.Mode.NONE && failure.percent() > 0) {
+            LOG.infof("Emulation: %s for %.2f%% of documents (salt '%s')",
+                    failure.mode(), failure.percent(), failure.salt());
+            wrapped = new FailureInjectingProcessor(wrapped, failure.mode(), failure.percent(), failure.salt(),
+                    failure.status().map(ProcessingStatus::valueOf).orElse(null), failure.timeout());
+        }
+        return wrapped;
+    }
+
+    /** True when any mode would wrap the processor. */
+    public static boolean active(EmulationConfig config) {
+        return config.latency().distribution() != Distribution.Kind.NONE
+                || !config.cpu().perKib().isZero()
+                || !config.cpu().perDocument().isZero()
+                || config.alloc().distribution() != Distribution.Kind.NONE
+                || config.resize().mode() != EmulationConfig.Resize.Mode.NONE
+                || (config.failure().mode() != EmulationConfig.Failure.Mode.NONE && config.failure().percent() > 0);
+    }
+
+    private static Distribution latency(EmulationConfig.Latency latency) {
+        return switch (latency.distribution()) {
+            case NONE -> null;
+            case FIXED -> Distribution.fixed(latency.delay().toNanos());
+            case UNIFORM -> Distribution.uniform(latency.min().toNanos(), latency.max().toNanos());
+            case LOG_NORMAL -> Distribution.logNormal(latency.median().toNanos(), latency.sigma());
+            case REPLAY -> Distribution.replay(latency.histogram().orElseThrow(() -> new IllegalStateException(
+                    "pipestream.echo.emulate.latency.histogram is required for replay")));
+        };
+    }
+
+    private static Distribution sizes(EmulationConfig.Sizes sizes, String group) {
+        return switch (sizes.distribution()) {
+            case NONE -> null;
+            case FIXED -> Distribution.fixed(sizes.bytes().asLongValue());
+            case UNIFORM -> Distribution.uniform(sizes.min().asLongValue(), sizes.max().asLongValue());
+            case LOG_NORMAL -> Distribution.logNormal(sizes.median().asLongValue(), sizes.sigma());
+            case REPLAY -> Distribution.replay(sizes.histogram().orElseThrow(() -> new IllegalStateException(
+                    "pipestream.echo.emulate." + group + ".histogram is required for replay")));
+        };
+    }
+}
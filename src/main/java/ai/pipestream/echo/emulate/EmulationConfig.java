@@ -0,0 +1,153 @@
+package ai.pipestream.echo.emulate;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Modes that make echo behave like a heavier module for capacity tests. All are off
+ * by default; they wrap the raw passthrough processor, so they need
+ * {@code pipestream.echo.raw-worker.enabled=true}.
+ */
+@ConfigMapping(prefix = "pipestream.echo.emulate")
+public interface EmulationConfig {
+
+    /** Per-document processing delay. */
+    Latency latency();
+
+    /** CPU time spent per document. */
+    Cpu cpu();
+
+    /** Heap allocated per document. */
+    Alloc alloc();
+
+    /** Size of the document echo acks back. */
+    Resize resize();
+
+    /** Documents that fail on purpose. */
+    Failure failure();
+
+    interface Latency {
+        /** Shape of the delay; {@code none} turns the mode off. */
+        @WithDefault("none")
+        Distribution.Kind distribution();
+
+        /** Delay for {@code fixed}. */
+        @WithDefault("0ms")
+        Duration delay();
+
+        /** Bounds for {@code uniform}. */
+        @WithDefault("0ms")
+        Duration min();
+
+        @WithDefault("0ms")
+        Duration max();
+
+        /** Median for {@code log-normal}. */
+        @WithDefault("10ms")
+        Duration median();
+
+        /** Shape for {@code log-normal}: 0.5 is a moderate tail, 1.0 a heavy one. */
+        @WithDefault("0.5")
+        double sigma();
+
+        /** HdrHistogram log ({@code .hlog}, values in nanoseconds) for {@code replay}. */
+        Optional<Path> histogram();
+    }
+
+    interface Cpu {
+        /** Burned per KiB of payload; zero turns proportional burn off. */
+        @WithDefault("0ms")
+        Duration perKib();
+
+        /** Burned once per document regardless of size. */
+        @WithDefault("0ms")
+        Duration perDocument();
+    }
+
+    /** A per-document size drawn from a {@link Distribution}. */
+    interface Sizes {
+        /** Shape of the size; {@code none} turns the mode off. */
+        @WithDefault("none")
+        Distribution.Kind distribution();
+
+        /** Bytes for {@code fixed}. */
+        @WithDefault("0")
+        MemorySize bytes();
+
+        /** Bounds for {@code uniform}. */
+        @WithDefault("0")
+        MemorySize min();
+
+        @WithDefault("0")
+        MemorySize max();
+
+        /** Median for {@code log-normal}. */
+        @WithDefault("1M")
+        MemorySize median();
+
+        /** Shape for {@code log-normal}. */
+        @WithDefault("0.5")
+        double sigma();
+
+        /** HdrHistogram log ({@code .hlog}, values in bytes) for {@code replay}. */
+        Optional<Path> histogram();
+    }
+
+    interface Alloc extends Sizes {
+    }
+
+    interface Resize extends Sizes {
+
+        enum Mode {
+            NONE,
+            PAD,
+            STRIP
+        }
+
+        /**
+         * {@code pad} grows each outgoing document to a size drawn from the
+         * distribution; {@code strip} cuts it down to its {@code doc_id}.
+         */
+        @WithDefault("none")
+        Mode mode();
+    }
+
+    interface Failure {
+
+        enum Mode {
+            NONE,
+            /** Ack with {@code status}. */
+            STATUS,
+            /** Let an exception escape the processor. */
+            THROW,
+            /** Hold the document for {@code timeout} before acking. */
+            TIMEOUT
+        }
+
+        @WithDefault("none")
+        Mode mode();
+
+        /** Share of documents that fail, selected by a hash of {@code doc_id}. */
+        @WithDefault("0")
+        double percent();
+
+        /** Mixed into the hash; change it to fail a different set of documents. */
+        @WithDefault("echo")
+        String salt();
+
+        /**
+         * {@code ProcessingStatus} name to ack with in {@code status} mode; unset uses
+         * the contract's generic failure status.
+         */
+        Optional<String> status();
+
+        /** How long {@code timeout} mode holds a document; set it past the engine's lease. */
+        @WithDefault("10m")
+        Duration timeout();
+    }
+}
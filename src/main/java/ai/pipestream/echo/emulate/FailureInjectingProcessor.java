@@ -0,0 +1,70 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.echo.emulate.EmulationConfig.Failure.Mode;
+import ai.pipestream.echo.work.LazyPipeStream;
+import ai.pipestream.echo.work.ProcessingFailedException;
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import ai.pipestream.module.work.v1.ProcessingStatus;
+import com.google.protobuf.Any;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.CRC32C;
+
+/**
+ * Fails a fixed share of documents, chosen by a hash of their {@code doc_id}, so the
+ * engine's retry and dead-letter paths can be load-tested reproducibly: the same
+ * documents fail on every run and on every redelivery.
+ *
+ * <p>{@link Mode#STATUS} acks with a non-SUCCESS status, {@link Mode#THROW} lets an
+ * unexpected exception escape (acked as the generic failure, with a warning),
+ * {@link Mode#TIMEOUT} holds the document past the engine's lease before answering.
+ * Changing {@code salt} picks a different set of documents at the same rate.
+ */
+final class FailureInjectingProcessor implements RawPayloadProcessor {
+
+    /** Resolution of {@code percent}: hundredths of a percent. */
+    private static final int BUCKETS = 10_000;
+
+    private final RawPayloadProcessor delegate;
+    private final Mode mode;
+    private final int failingBuckets;
+    private final byte[] salt;
+    private final ProcessingStatus status;
+    private final Duration timeout;
+
+    /** @param status the ack status for {@link Mode#STATUS}; {@code null} for the generic failure */
+    FailureInjectingProcessor(RawPayloadProcessor delegate, Mode mode, double percent, String salt,
+                              ProcessingStatus status, Duration timeout) {
+        this.delegate = delegate;
+        this.mode = mode;
+        this.failingBuckets = (int) Math.round(Math.max(0, Math.min(100, percent)) * BUCKETS / 100);
+        this.salt = salt.getBytes(StandardCharsets.UTF_8);
+        this.status = status;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Any process(Any payload) throws Exception {
+        String docId = LazyPipeStream.of(payload).docId();
+        if (!selected(docId)) {
+            return delegate.process(payload);
+        }
+        switch (mode) {
+            case STATUS -> throw status != null
+                    ? new ProcessingFailedException(status, "injected failure for doc " + docId)
+                    : new ProcessingFailedException("injected failure for doc " + docId);
+            case THROW -> throw new IllegalStateException("injected exception for doc " + docId);
+            case TIMEOUT -> Thread.sleep(timeout);
+            case NONE -> { }
+        }
+        return delegate.process(payload);
+    }
+
+    boolean selected(String docId) {
+        CRC32C crc = new CRC32C();
+        crc.update(salt);
+        crc.update(docId.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue() % BUCKETS < failingBuckets;
+    }
+}
@@ -0,0 +1,35 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import com.google.protobuf.Any;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds each document for a sampled delay before handing it to the wrapped processor,
+ * so echo answers like a slow module (a chunker, an embedder) would.
+ *
+ * <p>The delay is a plain sleep on the worker thread. On a virtual-thread worker
+ * ({@code pipestream.echo.raw-worker.virtual-threads}) the sleep unmounts and no
+ * platform thread is held, so thousands of documents can be "in processing" at once.
+ * Startup therefore refuses latency emulation on platform-thread workers.
+ */
+final class LatencyInjectingProcessor implements RawPayloadProcessor {
+
+    private final RawPayloadProcessor delegate;
+    private final Distribution delayNanos;
+
+    LatencyInjectingProcessor(RawPayloadProcessor delegate, Distribution delayNanos) {
+        this.delegate = delegate;
+        this.delayNanos = delayNanos;
+    }
+
+    @Override
+    public Any process(Any payload) throws Exception {
+        long delay = delayNanos.sample();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+        return delegate.process(payload);
+    }
+}
@@ -0,0 +1,94 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.emulate.EmulationConfig.Resize.Mode;
+import ai.pipestream.echo.work.LazyPipeStream;
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Resizes the outgoing {@code PipeStream} so downstream hops see documents of a chosen
+ * size: {@link Mode#PAD} grows the document to a sampled target with a deterministic
+ * blob, {@link Mode#STRIP} cuts it down to its {@code doc_id}.
+ *
+ * <p>Both work on the serialized payload without parsing it. Padding relies on
+ * protobuf's merge rule for a repeated embedded message field: a second
+ * {@code document} occurrence appended to the stream is merged into the first, so
+ * appending {@code document { <pad field> }} adds the blob to the existing document as
+ * an unknown field. The blob is built from a shared 1 MiB block, so a 256 MiB pad is a
+ * rope of references, not a fresh copy.
+ */
+final class PayloadResizingProcessor implements RawPayloadProcessor {
+
+    private static final int DOCUMENT = PipeStream.getDescriptor().findFieldByName("document").getNumber();
+    private static final int DOC_ID = PipeDoc.getDescriptor().findFieldByName("doc_id").getNumber();
+    /** Unknown {@code PipeDoc} field that carries the pad blob. */
+    static final int PAD_FIELD = UnknownFields.reserve(PipeDoc.getDescriptor(), 536_870_001);
+
+    private static final int BLOCK_BYTES = 1 << 20;
+    /** Incompressible, and identical on every pod and run. */
+    private static final ByteString BLOCK = block();
+
+    private final RawPayloadProcessor delegate;
+    private final Mode mode;
+    private final Distribution targetBytes;
+
+    PayloadResizingProcessor(RawPayloadProcessor delegate, Mode mode, Distribution targetBytes) {
+        this.delegate = delegate;
+        this.mode = mode;
+        this.targetBytes = targetBytes;
+    }
+
+    @Override
+    public Any process(Any payload) throws Exception {
+        Any out = delegate.process(payload);
+        ByteString resized = switch (mode) {
+            case NONE -> out.getValue();
+            case PAD -> pad(out.getValue(), targetBytes.sample());
+            case STRIP -> strip(out.getValue());
+        };
+        return resized == out.getValue() ? out : out.toBuilder().setValue(resized).build();
+    }
+
+    /** Appends a pad so the serialized stream reaches about {@code target} bytes; never shrinks. */
+    static ByteString pad(ByteString stream, long target) {
+        long deficit = target - stream.size();
+        // Two tags and two length prefixes wrap the blob; 16 bytes covers them.
+        long blobBytes = Math.min(deficit - 16, Integer.MAX_VALUE - 2L * BLOCK_BYTES);
+        if (blobBytes <= 0) {
+            return stream;
+        }
+        ByteString padField = UnknownFields.lengthDelimited(PAD_FIELD, blob((int) blobBytes));
+        return stream.concat(UnknownFields.lengthDelimited(DOCUMENT, padField));
+    }
+
+    /** Every top-level field but {@code document}, which is replaced by one holding only its {@code doc_id}. */
+    static ByteString strip(ByteString stream) throws IOException {
+        String docId = LazyPipeStream.of(stream).docId();
+        ByteString stripped = UnknownFields.without(stream, DOCUMENT);
+        if (docId.isEmpty()) {
+            return stripped;
+        }
+        ByteString docIdField = UnknownFields.lengthDelimited(DOC_ID, ByteString.copyFromUtf8(docId));
+        return stripped.concat(UnknownFields.lengthDelimited(DOCUMENT, docIdField));
+    }
+
+    private static ByteString blob(int bytes) {
+        ByteString blob = ByteString.EMPTY;
+        for (int remaining = bytes; remaining > 0; remaining -= BLOCK_BYTES) {
+            blob = blob.concat(remaining >= BLOCK_BYTES ? BLOCK : BLOCK.substring(0, remaining));
+        }
+        return blob;
+    }
+
+    private static ByteString block() {
+        byte[] bytes = new byte[BLOCK_BYTES];
+        new SplittableRandom(0x5EED_EC40L).nextBytes(bytes);
+        return ByteString.copyFrom(bytes);
+    }
+}
@@ -0,0 +1,82 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import com.google.protobuf.Any;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Spends CPU and allocates heap for each document before handing it on, so one echo
+ * deployment can take on the resource profile of another module.
+ *
+ * <p>CPU is burned in proportion to the payload size ({@code per-kib}) plus a flat
+ * {@code per-document} cost, measured in thread CPU time where the JVM reports it
+ * (platform threads) and wall time otherwise. Allocation is spread over
+ * {@link #CHUNK_BYTES} arrays that are touched and published, so escape analysis
+ * cannot remove them and the garbage reaches the collector like real work's would.
+ */
+final class ResourceBurningProcessor implements RawPayloadProcessor {
+
+    static final int CHUNK_BYTES = 64 * 1024;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final RawPayloadProcessor delegate;
+    private final long cpuNanosPerKib;
+    private final long cpuNanosPerDocument;
+    private final Distribution allocBytes;
+
+    /** Keeps the last allocated chunk reachable from outside the method. */
+    @SuppressWarnings("unused")
+    private volatile byte[] sink;
+
+    ResourceBurningProcessor(RawPayloadProcessor delegate, long cpuNanosPerKib, long cpuNanosPerDocument,
+                             Distribution allocBytes) {
+        this.delegate = delegate;
+        this.cpuNanosPerKib = cpuNanosPerKib;
+        this.cpuNanosPerDocument = cpuNanosPerDocument;
+        this.allocBytes = allocBytes;
+    }
+
+    @Override
+    public Any process(Any payload) throws Exception {
+        long kib = (payload.getValue().size() + 1023) / 1024;
+        burnCpu(cpuNanosPerDocument + kib * cpuNanosPerKib);
+        allocate(allocBytes.sample());
+        return delegate.process(payload);
+    }
+
+    private void burnCpu(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        boolean threadClock = !Thread.currentThread().isVirtual() && THREADS.isCurrentThreadCpuTimeSupported();
+        long start = threadClock ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+        long x = start | 1;
+        long elapsed;
+        do {
+            // A block of xorshift steps between clock reads keeps the clock off the profile.
+            for (int i = 0; i < 1_000; i++) {
+                x ^= x << 13;
+                x ^= x >>> 7;
+                x ^= x << 17;
+            }
+            elapsed = (threadClock ? THREADS.getCurrentThreadCpuTime() : System.nanoTime()) - start;
+        } while (elapsed < nanos);
+        if (x == 0) {
+            // Never true for a non-zero seed; keeps the loop's result observable.
+            sink = new byte[1];
+        }
+    }
+
+    private void allocate(long bytes) {
+        while (bytes > 0) {
+            byte[] chunk = new byte[(int) Math.min(bytes, CHUNK_BYTES)];
+            for (int i = 0; i < chunk.length; i += 4096) {
+                chunk[i] = 1;
+            }
+            sink = chunk;
+            bytes -= chunk.length;
+        }
+    }
+}
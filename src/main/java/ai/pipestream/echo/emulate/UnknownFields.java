@@ -0,0 +1,72 @@
+package ai.pipestream.echo.emulate;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Wire-level writing of length-delimited fields into serialized messages echo does not
+ * parse. Fields echo adds of its own use numbers the schema does not define
+ * ({@link #reserve}), so every parser along the pipeline keeps them as unknown fields
+ * and passes them through untouched.
+ */
+final class UnknownFields {
+
+    private UnknownFields() {
+    }
+
+    /**
+     * {@code number}, after checking {@code type} does not define it; fails fast if a
+     * schema update ever claims it.
+     */
+    static int reserve(Descriptor type, int number) {
+        if (type.findFieldByNumber(number) != null) {
+            throw new IllegalStateException(type.getFullName() + " now defines field " + number
+                    + " (" + type.findFieldByNumber(number).getName() + "); echo needs another number");
+        }
+        return number;
+    }
+
+    /** Tag, length and {@code value}: one length-delimited field on the wire. */
+    static ByteString lengthDelimited(int number, ByteString value) {
+        int headerSize = CodedOutputStream.computeTagSize(number) + CodedOutputStream.computeUInt32SizeNoTag(value.size());
+        byte[] header = new byte[headerSize];
+        try {
+            CodedOutputStream out = CodedOutputStream.newInstance(header);
+            out.writeTag(number, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(value.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ByteString.copyFrom(header).concat(value);
+    }
+
+    /**
+     * {@code message} with every top-level occurrence of field {@code number} dropped.
+     * The other fields are neither parsed nor copied: the result splices slices of
+     * {@code message} into a rope, and is {@code message} itself if nothing was dropped.
+     */
+    static ByteString without(ByteString message, int number) throws IOException {
+        ByteString kept = ByteString.EMPTY;
+        int keptFrom = 0;
+        CodedInputStream in = message.newCodedInput();
+        while (true) {
+            int fieldStart = in.getTotalBytesRead();
+            int tag = in.readTag();
+            if (tag == 0) {
+                break;
+            }
+            in.skipField(tag);
+            if (WireFormat.getTagFieldNumber(tag) == number) {
+                kept = kept.concat(message.substring(keptFrom, fieldStart));
+                keptFrom = in.getTotalBytesRead();
+            }
+        }
+        return keptFrom == 0 ? message : kept.concat(message.substring(keptFrom));
+    }
+}
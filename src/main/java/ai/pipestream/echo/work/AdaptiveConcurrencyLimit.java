@@ -0,0 +1,73 @@
+package ai.pipestream.echo.work;
+
+/**
+ * AIMD concurrency limit driven by engine ack round-trip latency.
+ *
+ * <p>Every {@code sampleWindow} acks the smoothed round trip is compared with the
+ * baseline (the lowest round trip recently seen). While it stays within
+ * {@code latencyTolerance} of the baseline the engine is not queuing, so the limit
+ * grows by one; once it drifts above, the limit is cut by {@code backoffRatio}. The
+ * baseline creeps up a little each window so a permanently slower engine becomes the
+ * new normal instead of pinning the limit at its floor.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    /** Weight of the newest sample in the smoothed round trip. */
+    private static final double RTT_SMOOTHING = 0.2;
+    /** Per-window upward drift of the baseline. */
+    private static final double BASELINE_DRIFT = 1.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final int sampleWindow;
+
+    private int limit;
+    private double smoothedRttNanos;
+    private double baselineRttNanos = Double.MAX_VALUE;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private int windowSamples;
+
+    public AdaptiveConcurrencyLimit(int minLimit, int maxLimit, double latencyTolerance,
+                                    double backoffRatio, int sampleWindow) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("need 1 <= min <= max, got " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.sampleWindow = Math.max(1, sampleWindow);
+        this.limit = minLimit;
+    }
+
+    /** A limit that never moves: the fixed {@code concurrency} cap. */
+    public static AdaptiveConcurrencyLimit fixed(int limit) {
+        AdaptiveConcurrencyLimit fixed = new AdaptiveConcurrencyLimit(limit, limit, 1, 1, 1);
+        fixed.limit = limit;
+        return fixed;
+    }
+
+    public synchronized int limit() {
+        return limit;
+    }
+
+    public synchronized void onAckRoundTrip(long rttNanos) {
+        smoothedRttNanos = smoothedRttNanos == 0
+                ? rttNanos
+                : smoothedRttNanos + RTT_SMOOTHING * (rttNanos - smoothedRttNanos);
+        windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+        if (++windowSamples < sampleWindow) {
+            return;
+        }
+        baselineRttNanos = Math.min(baselineRttNanos * BASELINE_DRIFT, windowMinRttNanos);
+        if (smoothedRttNanos <= baselineRttNanos * latencyTolerance) {
+            limit = Math.min(maxLimit, limit + 1);
+        } else {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        }
+        windowSamples = 0;
+        windowMinRttNanos = Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,67 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.module.work.v1.ModuleWorkServiceGrpc;
+import ai.pipestream.module.work.v1.WorkRequest;
+import ai.pipestream.module.work.v1.WorkResponse;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@code WorkResponse} marshaller that decodes large messages with aliasing enabled.
+ *
+ * <p>The stock protobuf marshaller streams big messages through the parser, copying
+ * every {@code bytes} field (including {@code WorkUnit.payload}) out of the frame
+ * buffers. Above the threshold this marshaller drains the message into one array and
+ * parses it with {@link CodedInputStream#enableAliasing(boolean)}, so those fields are
+ * slices of that array: one heap copy of the document instead of two or three.
+ */
+final class AliasingWorkMarshaller implements MethodDescriptor.Marshaller<WorkResponse> {
+
+    private final MethodDescriptor.Marshaller<WorkResponse> delegate =
+            ProtoUtils.marshaller(WorkResponse.getDefaultInstance());
+    private final long thresholdBytes;
+
+    AliasingWorkMarshaller(long thresholdBytes) {
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    /** The {@code ModuleWorkService/Work} method with this marshaller on the response side. */
+    static MethodDescriptor<WorkRequest, WorkResponse> workMethod(long thresholdBytes) {
+        return ModuleWorkServiceGrpc.getWorkMethod().toBuilder(
+                        ProtoUtils.marshaller(WorkRequest.getDefaultInstance()),
+                        new AliasingWorkMarshaller(thresholdBytes))
+                .build();
+    }
+
+    @Override
+    public InputStream stream(WorkResponse value) {
+        return delegate.stream(value);
+    }
+
+    @Override
+    public WorkResponse parse(InputStream stream) {
+        try {
+            int size = stream instanceof KnownLength ? stream.available() : -1;
+            if (size < 0 || size < thresholdBytes) {
+                return delegate.parse(stream);
+            }
+            // Aliasing only applies to buffers the parser is told are immutable; the array
+            // is ours alone, and wrapping it is how that is declared.
+            CodedInputStream in = UnsafeByteOperations.unsafeWrap(stream.readNBytes(size)).newCodedInput();
+            in.enableAliasing(true);
+            in.setSizeLimit(Integer.MAX_VALUE);
+            return WorkResponse.parseFrom(in);
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Invalid protobuf byte sequence")
+                    .withCause(e)
+                    .asRuntimeException();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.module.work.v1.WorkRequest;
+import ai.pipestream.module.work.v1.WorkResponse;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load seen by the worker loop on one engine channel: open work streams and a
+ * smoothed ack round trip (ack sent to {@code AckConfirmed} received), observed by
+ * intercepting the calls made through that channel.
+ */
+final class EngineLoad implements ClientInterceptor {
+
+    /** Weight of the newest ack round trip in the average. */
+    private static final double RTT_SMOOTHING = 0.3;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double ackRttNanos;
+
+    /**
+     * Peak-EWMA style cost: expected wait behind the streams already open. Falls back
+     * to the open-stream count until the first ack round trip has been seen, so only
+     * compare costs through {@link #notBusierThan}.
+     */
+    double cost() {
+        int open = outstanding.get();
+        double rtt = ackRttNanos;
+        return rtt == 0 ? open : rtt * (open + 1);
+    }
+
+    /**
+     * Whether a new stream is at least as well off here as on {@code other}. Costs are
+     * compared only when both channels have an ack round trip; otherwise one cost is in
+     * nanoseconds and the other a stream count, and a channel whose engine has never
+     * confirmed an ack (stuck, or freshly recycled) would always win. Open streams
+     * decide instead.
+     */
+    boolean notBusierThan(EngineLoad other) {
+        if (ackRttNanos == 0 || other.ackRttNanos == 0) {
+            return outstanding() <= other.outstanding();
+        }
+        return cost() <= other.cost();
+    }
+
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    void callStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    void callClosed() {
+        outstanding.decrementAndGet();
+    }
+
+    synchronized void onAckRoundTrip(long rttNanos) {
+        ackRttNanos = ackRttNanos == 0 ? rttNanos : ackRttNanos + RTT_SMOOTHING * (rttNanos - ackRttNanos);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            private final Map<String, Long> ackSentNanos = new ConcurrentHashMap<>();
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                callStarted();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onMessage(RespT message) {
+                        if (message instanceof WorkResponse response && response.hasAckConfirmed()) {
+                            Long sent = ackSentNanos.remove(response.getAckConfirmed().getWorkUnitId());
+                            if (sent != null) {
+                                onAckRoundTrip(System.nanoTime() - sent);
+                            }
+                        }
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        callClosed();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                if (message instanceof WorkRequest request && request.hasAck()) {
+                    ackSentNanos.put(request.getAck().getWorkUnitId(), System.nanoTime());
+                }
+                super.sendMessage(message);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package ai.pipestream.echo.work;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Per-worker delay between empty polls: exponential growth from a short initial delay
+ * toward a ceiling, with decorrelated jitter.
+ *
+ * <p>Each delay is drawn uniformly from {@code [initial, 3 × previous]} and clamped to
+ * the ceiling (the engine's {@code retry_after_ms}, or {@code no-work-retry-after}).
+ * The randomness keeps workers and replicas that went idle together from polling in
+ * lock-step; the short first step means a burst that starts soon after work dried up
+ * is picked up quickly. {@link #reset()} as soon as a poll returns work.
+ *
+ * <p>Not thread-safe: each worker owns one.
+ */
+final class IdleBackoff {
+
+    private final long initialNanos;
+    private final RandomGenerator random;
+    private long previousNanos;
+
+    IdleBackoff(Duration initial) {
+        this(initial, new SplittableRandom());
+    }
+
+    IdleBackoff(Duration initial, RandomGenerator random) {
+        this.initialNanos = Math.max(1, initial.toNanos());
+        this.random = random;
+        this.previousNanos = initialNanos;
+    }
+
+    /** Delay before the next poll, never above {@code ceiling}. */
+    Duration next(Duration ceiling) {
+        long ceilingNanos = ceiling.toNanos();
+        if (ceilingNanos <= initialNanos) {
+            return ceiling;
+        }
+        long upper = Math.min(ceilingNanos, saturatedTriple(previousNanos));
+        long delay = upper > initialNanos ? random.nextLong(initialNanos, upper + 1) : initialNanos;
+        previousNanos = delay;
+        return Duration.ofNanos(delay);
+    }
+
+    /** Work arrived: the next idle spell starts again from the initial delay. */
+    void reset() {
+        previousNanos = initialNanos;
+    }
+
+    private static long saturatedTriple(long nanos) {
+        return nanos > Long.MAX_VALUE / 3 ? Long.MAX_VALUE : nanos * 3;
+    }
+}
@@ -0,0 +1,109 @@
+package ai.pipestream.echo.work;
+
+/**
+ * Byte-weighted admission control for work pulls.
+ *
+ * <p>A payload's size is only known once the engine has served it, so each pull
+ * reserves the running average payload size up front and {@link Reservation#admit
+ * admits} the real size on arrival. A new pull waits while the reserved total plus
+ * that estimate would exceed the budget; many small documents run side by side while
+ * a few large ones hold back further pulls. A single payload larger than the whole
+ * budget is still admitted when nothing else is in flight, so it cannot wedge the loop.
+ *
+ * <p>Units beyond the first on one pull (batching, prefetch) cannot wait here: the
+ * worker that would wait is the one holding them. Instead the stream asks
+ * {@link Reservation#roomForAnother()} before granting the engine credit for another
+ * unit, and stops pulling on that stream when there is none.
+ */
+public final class InflightByteBudget {
+
+    /** Weight of the newest sample in the payload-size average. */
+    private static final double SIZE_SMOOTHING = 0.2;
+
+    private final long maxBytes;
+    private long inflightBytes;
+    private double averagePayloadBytes;
+
+    public InflightByteBudget(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("max-inflight-bytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /** Blocks until a pull fits the budget, then claims the estimated payload size for it. */
+    public synchronized Reservation reserve() throws InterruptedException {
+        long estimate = (long) averagePayloadBytes;
+        while (inflightBytes > 0 && inflightBytes + estimate > maxBytes) {
+            wait();
+        }
+        inflightBytes += estimate;
+        return new Reservation(estimate);
+    }
+
+    public synchronized long inflightBytes() {
+        return inflightBytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    private synchronized boolean fitsAnother() {
+        return inflightBytes + (long) averagePayloadBytes <= maxBytes;
+    }
+
+    private synchronized void adjust(long delta, long observedPayloadBytes) {
+        inflightBytes += delta;
+        if (observedPayloadBytes >= 0) {
+            averagePayloadBytes += SIZE_SMOOTHING * (observedPayloadBytes - averagePayloadBytes);
+        }
+        if (delta < 0) {
+            notifyAll();
+        }
+    }
+
+    /** One pull's share of the budget. Not thread-safe; owned by the pulling worker. */
+    public final class Reservation {
+        private long bytes;
+        private boolean estimated = true;
+        private boolean released;
+
+        private Reservation(long bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * Accounts for a payload served on this pull. The first one replaces the
+         * up-front estimate; later ones (batched pulls) add to it.
+         */
+        public void admit(long payloadBytes) {
+            if (released) {
+                return;
+            }
+            long delta = estimated ? payloadBytes - bytes : payloadBytes;
+            estimated = false;
+            adjust(delta, payloadBytes);
+            bytes += delta;
+        }
+
+        /** Whether another payload of the estimated size would still fit the budget. */
+        public boolean roomForAnother() {
+            return fitsAnother();
+        }
+
+        /** Hands back everything held so far once the corresponding acks are sent. */
+        public void drain() {
+            if (!released && bytes != 0) {
+                adjust(-bytes, -1);
+                bytes = 0;
+            }
+        }
+
+        /** Returns the reservation to the budget; idempotent. */
+        public void release() {
+            drain();
+            released = true;
+        }
+    }
+}
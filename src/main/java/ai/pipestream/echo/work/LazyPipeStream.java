@@ -0,0 +1,146 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only view over a serialized {@code PipeStream} that decodes routing headers on
+ * demand and leaves the document as raw bytes.
+ *
+ * <p>The first header access indexes the top-level length-delimited fields; each value
+ * is an aliased slice of the original {@link ByteString}, so blobs inside the document
+ * are never copied or parsed. {@link #parse()} materializes the full message only for
+ * callers that actually need it.
+ */
+public final class LazyPipeStream {
+
+    private static final int DOCUMENT = PipeStream.getDescriptor().findFieldByName("document").getNumber();
+    private static final int STREAM_ID = PipeStream.getDescriptor().findFieldByName("stream_id").getNumber();
+    private static final int DOC_ID = PipeDoc.getDescriptor().findFieldByName("doc_id").getNumber();
+
+    private final ByteString bytes;
+    private Map<Integer, ByteString> fields;
+    private Map<Integer, ByteString> documentFields;
+    private PipeStream parsed;
+
+    private LazyPipeStream(ByteString bytes) {
+        this.bytes = bytes;
+    }
+
+    public static LazyPipeStream of(ByteString serialized) {
+        return new LazyPipeStream(serialized);
+    }
+
+    public static LazyPipeStream of(Any payload) throws InvalidProtocolBufferException {
+        if (!payload.is(PipeStream.class)) {
+            throw new InvalidProtocolBufferException("WorkUnit payload is not a PipeStream: " + payload.getTypeUrl());
+        }
+        return new LazyPipeStream(payload.getValue());
+    }
+
+    /** The serialized message this view was built over. */
+    public ByteString bytes() {
+        return bytes;
+    }
+
+    public String streamId() throws InvalidProtocolBufferException {
+        return utf8(fields().get(STREAM_ID));
+    }
+
+    public String docId() throws InvalidProtocolBufferException {
+        return utf8(documentFields().get(DOC_ID));
+    }
+
+    /** Raw {@code document} bytes, or empty when the stream carries no document. */
+    public ByteString document() throws InvalidProtocolBufferException {
+        return fields().getOrDefault(DOCUMENT, ByteString.EMPTY);
+    }
+
+    /**
+     * Raw value of the top-level length-delimited field {@code number}, including
+     * fields the schema does not define; {@code null} when absent.
+     */
+    public ByteString field(int number) throws InvalidProtocolBufferException {
+        return fields().get(number);
+    }
+
+    /**
+     * Top-level {@code string} field by proto name, e.g. graph or node routing keys.
+     *
+     * @throws IllegalArgumentException if {@code PipeStream} has no such string field
+     */
+    public String stringField(String protoName) throws InvalidProtocolBufferException {
+        FieldDescriptor field = PipeStream.getDescriptor().findFieldByName(protoName);
+        if (field == null || field.getType() != FieldDescriptor.Type.STRING || field.isRepeated()) {
+            throw new IllegalArgumentException("PipeStream has no singular string field '" + protoName + "'");
+        }
+        return utf8(fields().get(field.getNumber()));
+    }
+
+    /** Fully parsed message; decoded once and cached. */
+    public PipeStream parse() throws InvalidProtocolBufferException {
+        if (parsed == null) {
+            parsed = PipeStream.parseFrom(bytes);
+        }
+        return parsed;
+    }
+
+    private Map<Integer, ByteString> fields() throws InvalidProtocolBufferException {
+        if (fields == null) {
+            fields = index(bytes, DOCUMENT);
+        }
+        return fields;
+    }
+
+    private Map<Integer, ByteString> documentFields() throws InvalidProtocolBufferException {
+        if (documentFields == null) {
+            documentFields = index(document(), 0);
+        }
+        return documentFields;
+    }
+
+    /**
+     * Maps each length-delimited field number to its last occurrence, as proto3 parsing
+     * would. Occurrences of the embedded message field {@code mergedField} are
+     * concatenated instead, which is how protobuf merges them.
+     */
+    private static Map<Integer, ByteString> index(ByteString message, int mergedField)
+            throws InvalidProtocolBufferException {
+        Map<Integer, ByteString> index = new HashMap<>();
+        CodedInputStream in = message.newCodedInput();
+        in.enableAliasing(true);
+        try {
+            for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+                if (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    int field = WireFormat.getTagFieldNumber(tag);
+                    if (field == mergedField) {
+                        index.merge(field, in.readBytes(), ByteString::concat);
+                    } else {
+                        index.put(field, in.readBytes());
+                    }
+                } else {
+                    in.skipField(tag);
+                }
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e);
+        }
+        return index;
+    }
+
+    private static String utf8(ByteString value) {
+        return value == null ? "" : value.toStringUtf8();
+    }
+}
@@ -0,0 +1,160 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.module.runtime.work.ModuleWorkEngineClient;
+import ai.pipestream.module.work.v1.ModuleWorkServiceGrpc;
+import io.grpc.ClientInterceptor;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * {@link ModuleWorkEngineClient} over a fixed pool of engine channels.
+ *
+ * <p>Each {@link #stub()} call picks a channel for the next worker stream, so streams
+ * are spread over several HTTP/2 connections (and engine event loops) instead of
+ * sharing one. {@link Selection#POWER_OF_TWO} samples two channels and takes the one
+ * with the lower {@link EngineLoad#cost() load}, steering new streams away from an
+ * engine that is busy hydrating a huge document. {@link #reconnect()} recycles only
+ * channels that are actually broken, falling back to the one the calling worker
+ * last used. A recycled slot is reopened through the same slot-aware factory, so the
+ * factory decides whether it returns to the same engine.
+ */
+public final class PooledEngineClient implements ModuleWorkEngineClient, AutoCloseable {
+
+    public enum Selection {
+        ROUND_ROBIN,
+        POWER_OF_TWO
+    }
+
+    private final IntFunction<ManagedChannel> channelFactory;
+    private final Selection selection;
+    private final ClientInterceptor[] interceptors;
+    private final AtomicReferenceArray<ManagedChannel> channels;
+    private final AtomicReferenceArray<EngineLoad> loads;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ThreadLocal<ManagedChannel> lastUsed = new ThreadLocal<>();
+
+    public PooledEngineClient(int size, Supplier<ManagedChannel> channelFactory) {
+        this(size, channelFactory, Selection.ROUND_ROBIN);
+    }
+
+    public PooledEngineClient(int size, Supplier<ManagedChannel> channelFactory, Selection selection) {
+        this(size, slot -> channelFactory.get(), selection, List.of());
+    }
+
+    /**
+     * @param channelFactory opens the channel for a slot; called again with the same slot
+     *                       whenever that slot is recycled
+     * @param interceptors   applied to every call made through the pool
+     */
+    public PooledEngineClient(int size, IntFunction<ManagedChannel> channelFactory, Selection selection,
+                              List<ClientInterceptor> interceptors) {
+        if (size < 1) {
+            throw new IllegalArgumentException("engine pool size must be positive: " + size);
+        }
+        this.channelFactory = channelFactory;
+        this.selection = selection;
+        this.interceptors = interceptors.toArray(ClientInterceptor[]::new);
+        this.channels = new AtomicReferenceArray<>(size);
+        this.loads = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            channels.set(i, channelFactory.apply(i));
+            loads.set(i, new EngineLoad());
+        }
+    }
+
+    @Override
+    public ModuleWorkServiceGrpc.ModuleWorkServiceStub stub() {
+        int slot = selectSlot();
+        ManagedChannel channel = channels.get(slot);
+        lastUsed.set(channel);
+        // withInterceptors runs the last one first, so the load probe sits next to the channel.
+        return ModuleWorkServiceGrpc.newStub(channel)
+                .withInterceptors(loads.get(slot))
+                .withInterceptors(interceptors);
+    }
+
+    /** The channels currently in the pool, for connectivity checks. */
+    public List<ManagedChannel> channels() {
+        List<ManagedChannel> snapshot = new ArrayList<>(channels.length());
+        for (int slot = 0; slot < channels.length(); slot++) {
+            snapshot.add(channels.get(slot));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void reconnect() {
+        boolean recycled = false;
+        for (int slot = 0; slot < channels.length(); slot++) {
+            ManagedChannel channel = channels.get(slot);
+            ConnectivityState state = channel.getState(false);
+            if (state == ConnectivityState.TRANSIENT_FAILURE || state == ConnectivityState.SHUTDOWN) {
+                recycle(slot, channel);
+                recycled = true;
+            }
+        }
+        ManagedChannel mine = lastUsed.get();
+        if (!recycled && mine != null) {
+            for (int slot = 0; slot < channels.length(); slot++) {
+                if (channels.get(slot) == mine) {
+                    recycle(slot, mine);
+                }
+            }
+        }
+    }
+
+    /** Reopens {@code slot} through the factory; calls already on the old channel finish. */
+    public void recycle(int slot) {
+        recycle(slot, channels.get(slot));
+    }
+
+    public int size() {
+        return channels.length();
+    }
+
+    EngineLoad load(int slot) {
+        return loads.get(slot);
+    }
+
+    int selectSlot() {
+        return selection == Selection.POWER_OF_TWO && channels.length() > 1
+                ? leastLoadedOfTwo()
+                : Math.floorMod(next.getAndIncrement(), channels.length());
+    }
+
+    private int leastLoadedOfTwo() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(channels.length());
+        int b = random.nextInt(channels.length() - 1);
+        if (b >= a) {
+            b++;
+        }
+        return loads.get(a).notBusierThan(loads.get(b)) ? a : b;
+    }
+
+    @Override
+    public void close() {
+        for (int slot = 0; slot < channels.length(); slot++) {
+            channels.get(slot).shutdownNow();
+        }
+    }
+
+    /** Swaps in a fresh channel unless another worker already replaced {@code broken}. */
+    private void recycle(int slot, ManagedChannel broken) {
+        ManagedChannel fresh = channelFactory.apply(slot);
+        if (channels.compareAndSet(slot, broken, fresh)) {
+            loads.set(slot, new EngineLoad());
+            broken.shutdown();
+        } else {
+            fresh.shutdownNow();
+        }
+    }
+}
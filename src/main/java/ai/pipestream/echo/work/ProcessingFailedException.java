@@ -0,0 +1,27 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.module.work.v1.ProcessingStatus;
+
+/**
+ * Thrown by a {@link RawPayloadProcessor} to ack a document with a specific
+ * non-SUCCESS status. Unlike any other exception it is an expected outcome: the
+ * worker acks it with {@link #status()} and logs it at debug level only.
+ */
+public class ProcessingFailedException extends Exception {
+
+    private final ProcessingStatus status;
+
+    /** Fails with the contract's generic failure status. */
+    public ProcessingFailedException(String message) {
+        this(RawWorkStream.FAILURE_STATUS, message);
+    }
+
+    public ProcessingFailedException(ProcessingStatus status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    public ProcessingStatus status() {
+        return status;
+    }
+}
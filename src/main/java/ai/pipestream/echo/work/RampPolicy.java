@@ -0,0 +1,79 @@
+package ai.pipestream.echo.work;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Loop-wide ramp decisions for {@link RawWorkerLoop}: how many workers to add when
+ * a poll comes back with work, and whether an idle worker may retire yet.
+ *
+ * <p>Every pull that returns work immediately extends a streak shared by all
+ * workers; an empty pull ends it. Until the streak reaches {@code streakThreshold}
+ * the loop grows one worker per productive pull, as before. Past it the backlog is
+ * evidently deep, so each productive pull grows the pool by {@code growthFactor}
+ * (doubling by default) and an intake blast reaches full concurrency in a handful
+ * of round trips. Shrinking stays gradual: at most one idle worker retires per
+ * {@code retireInterval}, so a brief gap in a burst does not collapse the pool.
+ * The concurrency cap, fixed or adaptive, still bounds every spawn.
+ */
+final class RampPolicy {
+
+    private final boolean enabled;
+    private final int streakThreshold;
+    private final double growthFactor;
+    private final long retireIntervalNanos;
+
+    private final AtomicInteger streak = new AtomicInteger();
+    private final AtomicLong lastRetireNanos;
+
+    RampPolicy(boolean enabled, int streakThreshold, double growthFactor, Duration retireInterval) {
+        this.enabled = enabled;
+        this.streakThreshold = Math.max(1, streakThreshold);
+        this.growthFactor = Math.max(1.0, growthFactor);
+        this.retireIntervalNanos = retireInterval.toNanos();
+        this.lastRetireNanos = new AtomicLong(System.nanoTime() - retireIntervalNanos);
+    }
+
+    /** The one-worker-per-productive-pull ramp with no retire pacing. */
+    static RampPolicy linear() {
+        return new RampPolicy(false, 1, 1.0, Duration.ZERO);
+    }
+
+    /** A pull returned work; returns how many workers to try to add. */
+    int onWork(int activeWorkers) {
+        int run = streak.incrementAndGet();
+        if (!enabled || run < streakThreshold) {
+            return 1;
+        }
+        return Math.max(1, (int) Math.ceil(activeWorkers * (growthFactor - 1.0)));
+    }
+
+    /** A pull came back empty: the backlog is drained, end the streak. */
+    void onIdle() {
+        streak.set(0);
+    }
+
+    /**
+     * Runs {@code leave} if the loop-wide retire slot is free and keeps the slot only
+     * when it succeeds, so a worker that fails to leave (the pool already sits at its
+     * floor) does not hold off the next one for a whole interval. False while the last
+     * retirement is too recent or when {@code leave} declined.
+     */
+    boolean retire(BooleanSupplier leave) {
+        if (!enabled) {
+            return leave.getAsBoolean();
+        }
+        long now = System.nanoTime();
+        long last = lastRetireNanos.get();
+        if (now - last < retireIntervalNanos || !lastRetireNanos.compareAndSet(last, now)) {
+            return false;
+        }
+        if (leave.getAsBoolean()) {
+            return true;
+        }
+        lastRetireNanos.compareAndSet(now, last);
+        return false;
+    }
+}
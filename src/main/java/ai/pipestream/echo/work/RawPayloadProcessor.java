@@ -0,0 +1,32 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.module.runtime.work.ModuleProcessor;
+import com.google.protobuf.Any;
+import com.google.protobuf.Message;
+
+/**
+ * {@link ModuleProcessor} variant over the packed {@code WorkUnit.payload}.
+ *
+ * <p>The returned {@code Any} becomes {@code WorkAck.updated_payload} as-is. Returning
+ * the input instance hands the original payload bytes back without a parse or
+ * re-serialize of the document. Implementations that only need routing headers can
+ * read them through {@link LazyPipeStream#of(Any)}.
+ */
+@FunctionalInterface
+public interface RawPayloadProcessor {
+
+    Any process(Any payload) throws Exception;
+
+    /**
+     * Adapts a typed processor: unpack, process, re-pack. When the processor returns
+     * its input instance the original payload is handed back instead of re-packed,
+     * which lets the worker ack it as unchanged.
+     */
+    static <T extends Message> RawPayloadProcessor unpacking(Class<T> type, ModuleProcessor<T> processor) {
+        return payload -> {
+            T input = payload.unpack(type);
+            T output = processor.process(input);
+            return output == input ? payload : Any.pack(output);
+        };
+    }
+}
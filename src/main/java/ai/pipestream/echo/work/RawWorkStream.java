@@ -0,0 +1,521 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.module.runtime.work.WorkerLoopConfig;
+import ai.pipestream.module.work.v1.AckConfirmed;
+import ai.pipestream.module.work.v1.ModuleWorkServiceGrpc;
+import ai.pipestream.module.work.v1.NoWorkAvailable;
+import ai.pipestream.module.work.v1.ProcessingStatus;
+import ai.pipestream.module.work.v1.WorkAck;
+import ai.pipestream.module.work.v1.WorkRequest;
+import ai.pipestream.module.work.v1.WorkResponse;
+import ai.pipestream.module.work.v1.WorkUnit;
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.MetadataUtils;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One demand-pull exchange on the {@code ModuleWorkService} bidi stream.
+ *
+ * <p>Sends {@code Hello}, then processes and acks every {@code WorkUnit} the engine
+ * serves until it answers {@code NoWorkAvailable} or completes the stream. Responses
+ * are queued by the gRPC callback and consumed on the worker thread, so a slow
+ * processor never blocks the transport. Inbound flow control is manual: the engine
+ * may run at most {@code prefetch-depth} messages ahead of the one being processed.
+ *
+ * <p>Prefetch reads ahead on this same stream, never on another one: with batched pulls
+ * the next unit is already queued when the current one is acked, so the worker does
+ * not idle a round trip between units.
+ *
+ * <p>Like the framework loop, the stream sends a {@code Heartbeat} every
+ * {@code heartbeat-interval} while a unit is being processed, so the engine extends
+ * its lease instead of reclaiming and re-serving a slow document, and while parked on
+ * a long-poll, so the engine does not reap the idle stream.
+ */
+final class RawWorkStream implements ClientResponseObserver<WorkRequest, WorkResponse> {
+
+    private static final Logger LOG = Logger.getLogger(RawWorkStream.class);
+
+    /** Sentinel queued when the engine completes the stream. */
+    private static final Object COMPLETED = new Object();
+
+    /** Sentinel queued by {@link #drain()} to wake a worker waiting on the inbox. */
+    private static final Object DRAIN = new Object();
+
+    /** Status acked when the processor fails; a contract rename breaks the build here. */
+    static final ProcessingStatus FAILURE_STATUS = ProcessingStatus.PROCESSING_STATUS_FAILURE;
+
+    /**
+     * Call header advertising how many work units the worker will take on one stream.
+     * Not part of the published {@code ModuleWorkService} contract: it is sent only when
+     * {@code batch-size} is raised above one, which needs an engine that honours it.
+     * Engines that do not know it keep serving one unit per stream.
+     */
+    static final Metadata.Key<String> MAX_WORK_UNITS =
+            Metadata.Key.of("x-pipestream-max-work-units", Metadata.ASCII_STRING_MARSHALLER);
+
+    /**
+     * Call header telling the engine this worker will stay on the stream after
+     * {@code NoWorkAvailable} for up to this many milliseconds, waiting for a push.
+     * Not part of the published contract either: it is sent only when {@code long-poll}
+     * is set, which needs an engine that honours it.
+     */
+    static final Metadata.Key<String> LONG_POLL_MS =
+            Metadata.Key.of("x-pipestream-long-poll-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    /** A response as queued by the callback thread, stamped for the queue-wait timer. */
+    private record Arrival(WorkResponse response, long arrivedNanos) {
+    }
+
+    /** An ack ready to send, stamped for the ack-send timer. */
+    private record ReadyAck(WorkRequest request, long readyNanos) {
+    }
+
+    /** Result of one exchange; {@code retryAfter} is set only when the engine had no work. */
+    record Outcome(int unitsProcessed, Duration retryAfter) {
+        boolean idle() {
+            return unitsProcessed == 0;
+        }
+    }
+
+    private final RawPayloadProcessor processor;
+    private final WorkerLoopConfig config;
+    private final RawWorkerConfig rawConfig;
+    private final WorkStreamListener listener;
+    private final ScheduledExecutorService heartbeats;
+    private final Map<String, Long> ackSentNanos = new ConcurrentHashMap<>();
+    private final BlockingQueue<Object> inbox = new LinkedBlockingQueue<>();
+    private final AtomicInteger acked = new AtomicInteger();
+    /** Messages the engine may still send: credit granted minus responses received. */
+    private final AtomicInteger credit = new AtomicInteger();
+    /** Serializes writes to {@link #requests}: the worker thread and the heartbeat timer both send. */
+    private final Object sendLock = new Object();
+    private volatile ClientCallStreamObserver<WorkRequest> requests;
+    private volatile boolean draining;
+    private volatile boolean cancelled;
+    private volatile boolean parked;
+    /** Work unit the processor is running right now, or null. */
+    private volatile String processing;
+    private boolean halfClosed;
+    private int received;
+    /** Units served ahead that a draining stream will never start. */
+    private int leftUnacked;
+
+    /** @param heartbeats timer the stream's heartbeats run on; shared by the loop's streams */
+    RawWorkStream(RawPayloadProcessor processor,
+                  WorkerLoopConfig config,
+                  RawWorkerConfig rawConfig,
+                  WorkStreamListener listener,
+                  ScheduledExecutorService heartbeats) {
+        this.processor = processor;
+        this.config = config;
+        this.rawConfig = rawConfig;
+        this.listener = listener;
+        this.heartbeats = heartbeats;
+    }
+
+    /**
+     * Runs the exchange on the calling thread. Each served payload holds its size in
+     * {@code reservation} until its ack has been sent.
+     *
+     * <p>With {@code batch-size} above one the engine is told (via the
+     * {@link #MAX_WORK_UNITS} header) that it may serve that many units on this stream,
+     * and acks are held back and sent as a group once {@code batch-size} are ready or
+     * {@code ack-flush-interval} has passed since the first of them.
+     *
+     * <p>Once {@link #drain() draining}, the stream acks what it has already processed,
+     * half-closes and grants no credit for further units; units the engine had already
+     * sent ahead are left unacked for redelivery rather than started.
+     *
+     * <p>When a batched or prefetching stream has no room left in the byte budget, it
+     * stops granting the engine credit; once its held acks are sent it half-closes so
+     * the worker returns to {@link InflightByteBudget#reserve()} and waits there.
+     *
+     * <p>With {@code long-poll} set, an idle worker does not hang up on
+     * {@code NoWorkAvailable}: it stays parked on the open stream (advertised via
+     * {@link #LONG_POLL_MS}) so the engine can push the next unit the moment one is
+     * enqueued. If the engine closes the stream instead, the usual retry applies.
+     *
+     * @throws StatusRuntimeException if the stream fails or the engine stops answering
+     */
+    Outcome run(ModuleWorkServiceGrpc.ModuleWorkServiceStub stub,
+                MethodDescriptor<WorkRequest, WorkResponse> workMethod,
+                InflightByteBudget.Reservation reservation) throws InterruptedException {
+        if (cancelled) {
+            // Drained before the call started: pull nothing.
+            return new Outcome(0, Duration.ZERO);
+        }
+        int batchSize = Math.max(1, rawConfig.batchSize());
+        Metadata headers = new Metadata();
+        if (batchSize > 1) {
+            headers.put(MAX_WORK_UNITS, Integer.toString(batchSize));
+        }
+        Duration longPoll = rawConfig.longPoll();
+        if (!longPoll.isZero()) {
+            headers.put(LONG_POLL_MS, Long.toString(longPoll.toMillis()));
+        }
+        Channel channel = ClientInterceptors.intercept(
+                stub.getChannel(), MetadataUtils.newAttachHeadersInterceptor(headers));
+        ClientCalls.asyncBidiStreamingCall(channel.newCall(workMethod, stub.getCallOptions()), this);
+
+        WorkRequest.Builder hello = WorkRequest.newBuilder();
+        hello.getHelloBuilder().setModuleId(config.moduleId());
+        send(hello.build());
+        long heartbeatMs = config.heartbeatInterval().toMillis();
+        ScheduledFuture<?> heartbeat = heartbeatMs > 0
+                ? heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS)
+                : null;
+
+        // Only a stream that can carry more than one unit needs its credit gated by the budget.
+        boolean gateCredit = batchSize > 1 || rawConfig.prefetchDepth() > 0;
+        int withheldCredit = 0;
+        boolean stopping = false;
+        List<ReadyAck> pendingAcks = new ArrayList<>(batchSize);
+        long flushDeadline = 0;
+        long parkDeadline = 0;
+        Duration idleRetry = config.noWorkRetryAfter();
+        int processed = 0;
+        try {
+            while (true) {
+                if (draining && !stopping) {
+                    // Finish what was started, then tell the engine this stream takes no more.
+                    stopping = true;
+                    flush(pendingAcks, reservation);
+                    halfClose();
+                    if (credit.get() == 0) {
+                        // Leave room for the engine's confirmations and end of stream.
+                        grant(1);
+                    }
+                }
+                long waitMs;
+                if (!pendingAcks.isEmpty()) {
+                    waitMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(flushDeadline - System.nanoTime()));
+                } else if (parked) {
+                    waitMs = Math.max(0, TimeUnit.NANOSECONDS.toMillis(parkDeadline - System.nanoTime()));
+                } else {
+                    waitMs = config.firstResponseTimeout().toMillis();
+                }
+                Object event = inbox.poll(waitMs, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    if (!pendingAcks.isEmpty()) {
+                        flush(pendingAcks, reservation);
+                        withheldCredit = restoreCredit(withheldCredit, reservation);
+                        continue;
+                    }
+                    if (parked) {
+                        // Parked the full long-poll window: hang up and re-poll straight away.
+                        parked = false;
+                        idleRetry = Duration.ZERO;
+                        halfClose();
+                        continue;
+                    }
+                    cancel();
+                    throw Status.DEADLINE_EXCEEDED
+                            .withDescription("engine did not respond within " + config.firstResponseTimeout())
+                            .asRuntimeException();
+                }
+                if (event == DRAIN) {
+                    continue;
+                }
+                if (event == COMPLETED) {
+                    flush(pendingAcks, reservation);
+                    halfClose();
+                    return new Outcome(processed, processed == 0 ? idleRetry : null);
+                }
+                if (event instanceof Throwable t) {
+                    throw Status.fromThrowable(t).asRuntimeException();
+                }
+                Arrival arrival = (Arrival) event;
+                WorkResponse response = arrival.response();
+                if (response.hasWorkUnit() && stopping) {
+                    // Prefetched but never started: no ack and no fresh credit, so the
+                    // engine redelivers it elsewhere instead of serving more here.
+                    leaveUnacked();
+                    LOG.debugf("Draining: leaving work unit %s unacked", response.getWorkUnit().getWorkUnitId());
+                    continue;
+                }
+                if (response.hasWorkUnit()) {
+                    listener.onQueued(System.nanoTime() - arrival.arrivedNanos());
+                    parked = false;
+                    WorkUnit unit = response.getWorkUnit();
+                    reservation.admit(unit.getPayload().getValue().size());
+                    if (!draining) {
+                        if (!gateCredit || reservation.roomForAnother()) {
+                            grant(1);
+                        } else {
+                            withheldCredit++;
+                        }
+                    }
+                    if (pendingAcks.isEmpty()) {
+                        flushDeadline = System.nanoTime() + rawConfig.ackFlushInterval().toNanos();
+                    }
+                    pendingAcks.add(new ReadyAck(ack(unit), System.nanoTime()));
+                    processed++;
+                    if (pendingAcks.size() >= batchSize || draining) {
+                        flush(pendingAcks, reservation);
+                        withheldCredit = restoreCredit(withheldCredit, reservation);
+                    }
+                    continue;
+                }
+                // Control messages always get their credit back, so a draining stream
+                // still receives its confirmations and the end of stream.
+                grant(1);
+                if (response.hasNoWork()) {
+                    flush(pendingAcks, reservation);
+                    idleRetry = retryAfter(response.getNoWork());
+                    if (processed == 0 && !longPoll.isZero() && parkDeadline == 0) {
+                        parked = true;
+                        parkDeadline = System.nanoTime() + longPoll.toNanos();
+                        continue;
+                    }
+                    halfClose();
+                    return new Outcome(processed, idleRetry);
+                } else if (response.hasAckConfirmed()) {
+                    onAckConfirmed(response.getAckConfirmed());
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        } finally {
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            int left = leftUnacked();
+            if (left > 0) {
+                listener.onLeftUnacked(left);
+            }
+        }
+    }
+
+    /**
+     * Hands back credit held back while the budget was full, once this stream's acks are
+     * sent. If there is still no room the stream half-closes first, so the engine serves
+     * nothing new on it and only finishes the exchange.
+     */
+    private int restoreCredit(int withheldCredit, InflightByteBudget.Reservation reservation) {
+        if (withheldCredit == 0 || draining) {
+            return 0;
+        }
+        if (!reservation.roomForAnother()) {
+            halfClose();
+        }
+        grant(withheldCredit);
+        return 0;
+    }
+
+    /** Lets the engine send {@code messages} more responses. */
+    private void grant(int messages) {
+        credit.addAndGet(messages);
+        requests.request(messages);
+    }
+
+    /** Timer task: keeps the lease of the unit in hand, or the parked stream, alive. */
+    private void heartbeat() {
+        String unit = processing;
+        if (unit == null && !parked) {
+            return;
+        }
+        WorkRequest.Builder request = WorkRequest.newBuilder();
+        if (unit != null) {
+            request.getHeartbeatBuilder().setWorkUnitId(unit);
+        } else {
+            request.getHeartbeatBuilder();
+        }
+        try {
+            send(request.build());
+        } catch (RuntimeException e) {
+            // The stream is failing; the worker thread sees that through its inbox.
+            LOG.debugf("Heartbeat not sent: %s", e.getMessage());
+        }
+    }
+
+    private void send(WorkRequest request) {
+        synchronized (sendLock) {
+            if (!halfClosed && !cancelled) {
+                requests.onNext(request);
+            }
+        }
+    }
+
+    /** Ends the request side once; later sends are dropped. */
+    private void halfClose() {
+        synchronized (sendLock) {
+            if (!halfClosed && !cancelled) {
+                halfClosed = true;
+                requests.onCompleted();
+            }
+        }
+    }
+
+    /** Sends held acks back to back so the transport writes them in one flush. */
+    private void flush(List<ReadyAck> pendingAcks, InflightByteBudget.Reservation reservation) {
+        long now = System.nanoTime();
+        for (ReadyAck ack : pendingAcks) {
+            ackSentNanos.put(ack.request().getAck().getWorkUnitId(), now);
+            send(ack.request());
+        }
+        long written = System.nanoTime();
+        for (ReadyAck ack : pendingAcks) {
+            listener.onAckWritten(written - ack.readyNanos());
+        }
+        acked.addAndGet(pendingAcks.size());
+        listener.onAcksSent(pendingAcks.size());
+        pendingAcks.clear();
+        reservation.drain();
+    }
+
+    /**
+     * Stops this exchange from taking on work: a stream that has not been served a
+     * unit yet is cancelled; one holding units keeps going but acks each as soon as it
+     * is processed. Safe to call from any thread.
+     */
+    synchronized void drain() {
+        draining = true;
+        if (received == 0) {
+            cancel();
+        } else {
+            inbox.add(DRAIN);
+        }
+    }
+
+    /**
+     * Units served on this stream whose ack is still owed; units a draining stream left
+     * unstarted are reported through {@link WorkStreamListener#onLeftUnacked} instead.
+     */
+    synchronized int unacked() {
+        return received - acked.get() - leftUnacked;
+    }
+
+    private synchronized void leaveUnacked() {
+        leftUnacked++;
+    }
+
+    private synchronized int leftUnacked() {
+        return leftUnacked;
+    }
+
+    /** Aborts the exchange; safe to call from any thread. */
+    void cancel() {
+        synchronized (sendLock) {
+            cancelled = true;
+            ClientCallStreamObserver<WorkRequest> call = requests;
+            if (call != null) {
+                call.cancel("worker stopping", null);
+            }
+        }
+    }
+
+    private void onAckConfirmed(AckConfirmed confirmed) {
+        Long sentNanos = ackSentNanos.remove(confirmed.getWorkUnitId());
+        if (sentNanos != null) {
+            listener.onAckConfirmed(System.nanoTime() - sentNanos);
+        }
+        if (!confirmed.getAccepted()) {
+            LOG.warnf("Engine rejected ack for work unit %s", confirmed.getWorkUnitId());
+        }
+    }
+
+    /** Queues an event for the worker thread. */
+    private synchronized void enqueue(Object event) {
+        if (event instanceof Arrival arrival && arrival.response().hasWorkUnit()) {
+            received++;
+        }
+        inbox.add(event);
+    }
+
+    private WorkRequest ack(WorkUnit unit) {
+        WorkAck.Builder ack = WorkAck.newBuilder().setWorkUnitId(unit.getWorkUnitId());
+        Any payload = unit.getPayload();
+        if (LOG.isDebugEnabled()) {
+            logHeaders(unit.getWorkUnitId(), payload);
+        }
+        processing = unit.getWorkUnitId();
+        try {
+            long started = System.nanoTime();
+            Any updated = processor.process(payload);
+            listener.onProcessed(System.nanoTime() - started);
+            ack.setStatus(ProcessingStatus.PROCESSING_STATUS_SUCCESS);
+            // An identity result is acked as "unchanged" so the document is not shipped back.
+            if (updated != payload || !rawConfig.ackUnchangedWithoutPayload()) {
+                ack.setUpdatedPayload(updated);
+            }
+        } catch (ProcessingFailedException e) {
+            LOG.debugf("Work unit %s failed with %s: %s", unit.getWorkUnitId(), e.status(), e.getMessage());
+            ack.clearUpdatedPayload().setStatus(e.status());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.warnf(e, "Processor failed for work unit %s", unit.getWorkUnitId());
+            ack.clearUpdatedPayload().setStatus(FAILURE_STATUS);
+        } finally {
+            processing = null;
+        }
+        return WorkRequest.newBuilder().setAck(ack).build();
+    }
+
+    /** Debug trace only: a payload it cannot read must not change the ack. */
+    private static void logHeaders(String workUnitId, Any payload) {
+        try {
+            LazyPipeStream headers = LazyPipeStream.of(payload);
+            LOG.debugf("Work unit %s: stream %s, doc %s", workUnitId, headers.streamId(), headers.docId());
+        } catch (InvalidProtocolBufferException e) {
+            LOG.debugf("Work unit %s: payload headers unreadable (%s)", workUnitId, e.getMessage());
+        }
+    }
+
+    private Duration retryAfter(NoWorkAvailable noWork) {
+        long retryAfterMs = noWork.getRetryAfterMs();
+        return retryAfterMs > 0 ? Duration.ofMillis(retryAfterMs) : config.noWorkRetryAfter();
+    }
+
+    // ----- gRPC callbacks -----
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<WorkRequest> requestStream) {
+        this.requests = requestStream;
+        if (cancelled) {
+            requestStream.cancel("worker stopping", null);
+        }
+        credit.set(1 + rawConfig.prefetchDepth());
+        requestStream.disableAutoRequestWithInitialRequest(1 + rawConfig.prefetchDepth());
+    }
+
+    @Override
+    public void onNext(WorkResponse response) {
+        credit.decrementAndGet();
+        enqueue(new Arrival(response, System.nanoTime()));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        enqueue(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        enqueue(COMPLETED);
+    }
+}
@@ -0,0 +1,158 @@
+package ai.pipestream.echo.work;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Settings specific to {@link RawWorkerLoop}. Module id, concurrency and idle
+ * polling come from the shared {@code pipestream.module.worker-loop.*} config.
+ */
+@ConfigMapping(prefix = "pipestream.echo.raw-worker")
+public interface RawWorkerConfig {
+
+    /**
+     * When true echo pulls work through {@link RawWorkerLoop}; when false it falls
+     * back to the framework {@code ModuleWorkerLoop<PipeStream>}.
+     */
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * When the processor hands back the exact payload it was given, ack SUCCESS
+     * without {@code updated_payload}; the engine keeps the document it already
+     * holds. Requires an engine that reads a payload-less SUCCESS as "unchanged".
+     */
+    @WithDefault("false")
+    boolean ackUnchangedWithoutPayload();
+
+    /**
+     * {@code WorkResponse} messages at least this large are decoded with aliasing, so
+     * payload bytes reference the received buffer instead of being copied again.
+     */
+    @WithDefault("1M")
+    MemorySize aliasingThreshold();
+
+    /**
+     * Ceiling on the summed payload size of work units pulled but not yet acked.
+     * Workers stop pulling while the next (estimated) payload would cross it; with
+     * batching or prefetch a stream also stops granting the engine credit for more
+     * units. Units the engine already had credit for (up to {@code prefetch-depth}
+     * ahead) may still arrive and are processed over the cap.
+     */
+    @WithDefault("512M")
+    MemorySize maxInflightBytes();
+
+    /**
+     * Work units a worker asks for per pull, and acks it sends per flush. One keeps
+     * the classic one-unit exchange and sends no extra header; larger values are an
+     * opt-in that requires engine support for the {@code x-pipestream-max-work-units}
+     * call header, which the published contract does not define yet.
+     */
+    @WithDefault("1")
+    int batchSize();
+
+    /** Longest time a ready ack is held back waiting for the rest of its batch. */
+    @WithDefault("5ms")
+    Duration ackFlushInterval();
+
+    /**
+     * Extra messages the engine may send on a stream ahead of the one being processed,
+     * so with {@code batch-size} above one the next unit is already in hand when the
+     * current one is acked. Reads ahead on the same stream only; it never opens more.
+     */
+    @WithDefault("0")
+    int prefetchDepth();
+
+    /**
+     * How long an idle worker stays parked on the open stream after
+     * {@code NoWorkAvailable}, so the engine can push work the moment it arrives.
+     * Zero hangs up immediately, polls again after the retry delay and sends no extra
+     * header; larger values are an opt-in that requires engine support for the
+     * {@code x-pipestream-long-poll-ms} call header, which the contract does not define yet.
+     */
+    @WithDefault("0s")
+    Duration longPoll();
+
+    /**
+     * On shutdown, how long units already pulled get to be processed and acked before
+     * their streams are cancelled and the units left to engine redelivery. Zero
+     * cancels at once.
+     */
+    @WithDefault("20s")
+    Duration drainTimeout();
+
+    /**
+     * Run each worker, including its blocking engine exchange and the processor call,
+     * on a virtual thread instead of a pooled platform thread.
+     */
+    @WithDefault("false")
+    boolean virtualThreads();
+
+    /** Delay between empty polls of an idle worker. */
+    IdleBackoff idleBackoff();
+
+    /** How fast the worker pool grows during a burst and shrinks after it. */
+    Ramp ramp();
+
+    /** Latency-driven worker cap between {@code min-concurrency} and {@code concurrency}. */
+    AdaptiveConcurrency adaptiveConcurrency();
+
+    interface AdaptiveConcurrency {
+        /** When false the cap is the fixed {@code concurrency}. */
+        @WithDefault("false")
+        boolean enabled();
+
+        /** Smoothed ack round trip, as a multiple of the baseline, still treated as "flat". */
+        @WithDefault("2.0")
+        double latencyTolerance();
+
+        /** Multiplier applied to the cap when latency rises past the tolerance. */
+        @WithDefault("0.75")
+        double backoffRatio();
+
+        /** Ack round trips observed between limit adjustments. */
+        @WithDefault("20")
+        int sampleWindow();
+    }
+
+    interface IdleBackoff {
+        /**
+         * When false an idle worker always waits the full retry delay (the engine's
+         * {@code retry_after_ms}, or {@code no-work-retry-after}).
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * First delay after work dries up. Later delays grow with jitter toward the
+         * retry delay, which stays the ceiling.
+         */
+        @WithDefault("100ms")
+        Duration initialDelay();
+    }
+
+    interface Ramp {
+        /**
+         * When true a streak of productive pulls grows the pool multiplicatively and
+         * idle workers retire one at a time; when false every productive pull adds one
+         * worker and idle workers retire independently.
+         */
+        @WithDefault("true")
+        boolean fast();
+
+        /** Consecutive pulls that returned work before growth turns multiplicative. */
+        @WithDefault("3")
+        int streakThreshold();
+
+        /** Pool size multiplier per productive pull once the streak is reached. */
+        @WithDefault("2.0")
+        double growthFactor();
+
+        /** Minimum time between two idle workers retiring. */
+        @WithDefault("1s")
+        Duration retireInterval();
+    }
+}
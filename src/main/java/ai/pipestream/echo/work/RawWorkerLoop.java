@@ -0,0 +1,338 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.module.runtime.work.ModuleWorkEngineClient;
+import ai.pipestream.module.runtime.work.WorkerLoopConfig;
+import ai.pipestream.module.work.v1.WorkRequest;
+import ai.pipestream.module.work.v1.WorkResponse;
+import io.grpc.MethodDescriptor;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Demand-pull worker loop that hands {@code WorkUnit.payload} to a
+ * {@link RawPayloadProcessor} without unpacking it.
+ *
+ * <p>Speaks the same {@code ModuleWorkService} protocol and honours the same
+ * {@link WorkerLoopConfig} as the framework {@code ModuleWorkerLoop}: start with
+ * {@code min-concurrency} idle pollers, add a worker (up to {@code concurrency})
+ * whenever one comes back with work, and retire workers above the minimum after
+ * {@code idle-rounds-before-exit} empty polls. With the fast ramp a run of
+ * productive pulls grows the pool multiplicatively instead ({@link RampPolicy}).
+ * Idle workers poll again after a jittered, growing delay capped by the engine's
+ * retry hint ({@link IdleBackoff}). Pulls are additionally gated by an
+ * {@link InflightByteBudget} so concurrency is bounded by payload bytes, not just
+ * by worker count. With a {@code prefetch-depth} the engine may send each worker's
+ * next unit on the same stream while the current one is still being processed.
+ * With adaptive concurrency, {@code concurrency} becomes a ceiling and the live cap
+ * follows engine ack latency ({@link AdaptiveConcurrencyLimit}).
+ * {@link #stop()} drains: units already pulled are processed and acked before the
+ * streams close, so a rolling deploy does not leave them to lease-timeout redelivery.
+ * Units still being processed are heartbeated every {@code heartbeat-interval}, as the
+ * framework loop does, so a slow document keeps its lease.
+ */
+public final class RawWorkerLoop {
+
+    private static final Logger LOG = Logger.getLogger(RawWorkerLoop.class);
+
+    private final RawPayloadProcessor processor;
+    private final ModuleWorkEngineClient engineClient;
+    private final WorkerLoopConfig config;
+    private final RawWorkerConfig rawConfig;
+    private final MethodDescriptor<WorkRequest, WorkResponse> workMethod;
+    private final InflightByteBudget budget;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final WorkStreamListener streamListener;
+    private final RampPolicy ramp;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicInteger workerIds = new AtomicInteger();
+    private final AtomicInteger drainedUnits = new AtomicInteger();
+    private final AtomicInteger leftUnits = new AtomicInteger();
+    private final Set<RawWorkStream> openStreams = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private ExecutorService workers;
+    private ScheduledExecutorService heartbeats;
+
+    public RawWorkerLoop(RawPayloadProcessor processor,
+                         ModuleWorkEngineClient engineClient,
+                         WorkerLoopConfig config,
+                         RawWorkerConfig rawConfig) {
+        this(processor, engineClient, config, rawConfig, WorkStageTimers.disabled());
+    }
+
+    public RawWorkerLoop(RawPayloadProcessor processor,
+                         ModuleWorkEngineClient engineClient,
+                         WorkerLoopConfig config,
+                         RawWorkerConfig rawConfig,
+                         WorkStageTimers stageTimers) {
+        this.processor = processor;
+        this.engineClient = engineClient;
+        this.config = config;
+        this.rawConfig = rawConfig;
+        this.workMethod = AliasingWorkMarshaller.workMethod(rawConfig.aliasingThreshold().asLongValue());
+        this.budget = new InflightByteBudget(rawConfig.maxInflightBytes().asLongValue());
+        RawWorkerConfig.AdaptiveConcurrency adaptive = rawConfig.adaptiveConcurrency();
+        int minLimit = Math.max(1, config.minConcurrency());
+        this.concurrencyLimit = adaptive.enabled()
+                ? new AdaptiveConcurrencyLimit(minLimit, Math.max(minLimit, config.concurrency()),
+                        adaptive.latencyTolerance(), adaptive.backoffRatio(), adaptive.sampleWindow())
+                : AdaptiveConcurrencyLimit.fixed(Math.max(minLimit, config.concurrency()));
+        RawWorkerConfig.Ramp rampConfig = rawConfig.ramp();
+        this.ramp = rampConfig.fast()
+                ? new RampPolicy(true, rampConfig.streakThreshold(), rampConfig.growthFactor(),
+                        rampConfig.retireInterval())
+                : RampPolicy.linear();
+        this.streamListener = new WorkStreamListener() {
+            @Override
+            public void onQueued(long nanos) {
+                stageTimers.record(WorkStageTimers.Stage.QUEUE, nanos);
+            }
+
+            @Override
+            public void onProcessed(long nanos) {
+                stageTimers.record(WorkStageTimers.Stage.PROCESS, nanos);
+            }
+
+            @Override
+            public void onAckWritten(long nanos) {
+                stageTimers.record(WorkStageTimers.Stage.ACK_SEND, nanos);
+            }
+
+            @Override
+            public void onAckConfirmed(long rttNanos) {
+                stageTimers.record(WorkStageTimers.Stage.CONFIRM, rttNanos);
+                concurrencyLimit.onAckRoundTrip(rttNanos);
+            }
+
+            @Override
+            public void onAcksSent(int count) {
+                if (!running) {
+                    drainedUnits.addAndGet(count);
+                }
+            }
+
+            @Override
+            public void onLeftUnacked(int count) {
+                leftUnits.addAndGet(count);
+            }
+        };
+    }
+
+    public synchronized void start() {
+        if (!config.enabled()) {
+            LOG.infof("Worker loop disabled for module %s", config.moduleId());
+            return;
+        }
+        if (running) {
+            return;
+        }
+        running = true;
+        heartbeats = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("echo-raw-heartbeat").daemon(true).factory());
+        // Virtual workers park on engine I/O and processor sleeps without holding a carrier
+        // thread (and, since JDK 24, without pinning inside synchronized budget waits).
+        workers = rawConfig.virtualThreads()
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("echo-raw-worker-", 1).factory())
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("echo-raw-worker-", 1).daemon(true).factory());
+        for (int i = 0; i < Math.max(1, config.minConcurrency()); i++) {
+            trySpawn();
+        }
+        LOG.infof("Raw worker loop started for module %s (min=%d, max=%d, adaptive=%s, virtual-threads=%s)",
+                config.moduleId(), config.minConcurrency(), config.concurrency(),
+                rawConfig.adaptiveConcurrency().enabled(), rawConfig.virtualThreads());
+    }
+
+    /** Units finished and abandoned by a {@link #stop() drain}. */
+    public record DrainResult(int drained, int abandoned) {
+    }
+
+    /** Drains with the configured {@code drain-timeout}. */
+    public DrainResult stop() {
+        return stop(rawConfig.drainTimeout());
+    }
+
+    /**
+     * Stops pulling and gives units already served up to {@code timeout} to be
+     * processed and acked, and their streams to close, before cancelling whatever is
+     * left. Units still unacked at that point, and units the engine had already sent
+     * but that were never started, are abandoned to engine redelivery.
+     */
+    public synchronized DrainResult stop(Duration timeout) {
+        if (!running) {
+            return new DrainResult(0, 0);
+        }
+        running = false;
+        openStreams.forEach(RawWorkStream::drain);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (!openStreams.isEmpty() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int abandoned = 0;
+        for (RawWorkStream stream : openStreams) {
+            abandoned += stream.unacked();
+            stream.cancel();
+        }
+        workers.shutdownNow();
+        heartbeats.shutdownNow();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOG.warnf("Raw worker loop for module %s did not stop within 5s", config.moduleId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Read once the workers are gone: each stream reports its left units on the way out.
+        DrainResult result = new DrainResult(drainedUnits.get(), abandoned + leftUnits.get());
+        if (result.abandoned() > 0) {
+            LOG.warnf("Raw worker loop for module %s stopped: %d units drained, %d abandoned after %s",
+                    config.moduleId(), result.drained(), result.abandoned(), timeout);
+        } else {
+            LOG.infof("Raw worker loop for module %s stopped: %d units drained",
+                    config.moduleId(), result.drained());
+        }
+        return result;
+    }
+
+    /** Payload bytes currently pulled but not yet acked. */
+    public long inflightBytes() {
+        return budget.inflightBytes();
+    }
+
+    /** Worker cap in force right now; moves only with adaptive concurrency enabled. */
+    public int concurrencyLimit() {
+        return concurrencyLimit.limit();
+    }
+
+    /** Number of workers currently polling or processing. */
+    public int activeWorkers() {
+        return activeWorkers.get();
+    }
+
+    private boolean trySpawn() {
+        int current;
+        do {
+            current = activeWorkers.get();
+            if (!running || current >= concurrencyLimit.limit()) {
+                return false;
+            }
+        } while (!activeWorkers.compareAndSet(current, current + 1));
+
+        int id = workerIds.incrementAndGet();
+        try {
+            workers.execute(() -> runWorker(id));
+            return true;
+        } catch (RejectedExecutionException e) {
+            activeWorkers.decrementAndGet();
+            return false;
+        }
+    }
+
+    /** Leaves the pool if it is above {@code floor}; never drops below it. */
+    private boolean tryRetire(int floor) {
+        int current;
+        do {
+            current = activeWorkers.get();
+            if (current <= floor) {
+                return false;
+            }
+        } while (!activeWorkers.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    private void runWorker(int id) {
+        boolean retired = false;
+        int idleRounds = 0;
+        Duration backoff = config.reconnectInitialDelay();
+        RawWorkerConfig.IdleBackoff idleConfig = rawConfig.idleBackoff();
+        IdleBackoff idleBackoff = new IdleBackoff(idleConfig.initialDelay());
+        try {
+            while (running) {
+                InflightByteBudget.Reservation reservation = budget.reserve();
+                RawWorkStream stream = new RawWorkStream(processor, config, rawConfig, streamListener, heartbeats);
+                openStreams.add(stream);
+                if (!running) {
+                    // stop() began draining between the loop check and registration.
+                    stream.drain();
+                }
+                try {
+                    RawWorkStream.Outcome outcome;
+                    try {
+                        outcome = stream.run(engineClient.stub(), workMethod, reservation);
+                    } finally {
+                        // Only once run returns are the stream's acks sent and its left units reported.
+                        openStreams.remove(stream);
+                    }
+                    backoff = config.reconnectInitialDelay();
+                    if (!outcome.idle()) {
+                        idleRounds = 0;
+                        idleBackoff.reset();
+                        // The adaptive limit may have dropped under us; shed the excess.
+                        if (tryRetire(concurrencyLimit.limit())) {
+                            retired = true;
+                            LOG.debugf("Worker %d retiring: concurrency limit is %d", id, concurrencyLimit.limit());
+                            return;
+                        }
+                        int spawn = ramp.onWork(activeWorkers.get());
+                        for (int i = 0; i < spawn && trySpawn(); i++) {
+                            // keep adding until the step is done or the cap is hit
+                        }
+                        continue;
+                    }
+                    ramp.onIdle();
+                    if (++idleRounds >= config.idleRoundsBeforeExit()
+                            && activeWorkers.get() > config.minConcurrency()
+                            && ramp.retire(() -> tryRetire(config.minConcurrency()))) {
+                        retired = true;
+                        LOG.debugf("Worker %d retiring after %d idle rounds", id, idleRounds);
+                        return;
+                    }
+                    Duration idleDelay = idleConfig.enabled()
+                            ? idleBackoff.next(outcome.retryAfter())
+                            : outcome.retryAfter();
+                    TimeUnit.NANOSECONDS.sleep(idleDelay.toNanos());
+                } catch (RuntimeException e) {
+                    if (!running) {
+                        return;
+                    }
+                    LOG.warnf("Worker %d stream failed (%s); reconnecting in %s", id, e.getMessage(), backoff);
+                    try {
+                        engineClient.reconnect();
+                    } catch (RuntimeException reconnectFailure) {
+                        // e.g. Stork cannot resolve the engine during a Consul blip; only
+                        // workers spawn workers, so this one must stay in the backoff loop.
+                        LOG.warnf("Worker %d could not reconnect (%s); retrying in %s",
+                                id, reconnectFailure.getMessage(), backoff);
+                    }
+                    Thread.sleep(backoff.toMillis());
+                    backoff = min(backoff.multipliedBy(2), config.reconnectMaxDelay());
+                } finally {
+                    reservation.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!retired) {
+                activeWorkers.decrementAndGet();
+            }
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,67 @@
+package ai.pipestream.echo.work;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each stage a work unit passes through in {@link RawWorkerLoop}, as the
+ * {@code echo.worker.stage} timer tagged by {@code module} and {@code stage}.
+ *
+ * <p>The stages cover the time from the {@code WorkResponse} arriving to the engine's
+ * {@code AckConfirmed}:
+ * <ul>
+ *   <li>{@code queue}: arrival on the gRPC callback until the worker picks it up;</li>
+ *   <li>{@code process}: the {@link RawPayloadProcessor} call, including any
+ *       {@code Any} unpack and repack it does;</li>
+ *   <li>{@code ack_send}: ack ready until written, batching hold included;</li>
+ *   <li>{@code confirm}: ack written until the engine's {@code AckConfirmed}.</li>
+ * </ul>
+ * Each timer publishes a percentile histogram, so Prometheus can aggregate
+ * quantiles across pods, plus client-side p50/p99/p999.
+ */
+public final class WorkStageTimers {
+
+    enum Stage {
+        QUEUE("queue"),
+        PROCESS("process"),
+        ACK_SEND("ack_send"),
+        CONFIRM("confirm");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+
+    public WorkStageTimers(MeterRegistry registry, String moduleId) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("echo.worker.stage")
+                    .description("Time a work unit spends in one worker loop stage")
+                    .tag("module", moduleId)
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .minimumExpectedValue(Duration.ofNanos(1_000))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(registry));
+        }
+    }
+
+    /** Timers that record nowhere, for loops built without a registry. */
+    public static WorkStageTimers disabled() {
+        return new WorkStageTimers(new CompositeMeterRegistry(), "none");
+    }
+
+    void record(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,31 @@
+package ai.pipestream.echo.work;
+
+/** Signals a {@link RawWorkStream} reports back to the loop that owns it. */
+interface WorkStreamListener {
+
+    WorkStreamListener NONE = new WorkStreamListener() { };
+
+    /** A work unit waited {@code nanos} between arriving and being picked up by the worker. */
+    default void onQueued(long nanos) {
+    }
+
+    /** The processor took {@code nanos} on one payload. */
+    default void onProcessed(long nanos) {
+    }
+
+    /** An ack was written {@code nanos} after it was ready, batching hold included. */
+    default void onAckWritten(long nanos) {
+    }
+
+    /** The engine confirmed an ack {@code rttNanos} after it was sent. */
+    default void onAckConfirmed(long rttNanos) {
+    }
+
+    /** {@code count} acks were just written to the engine. */
+    default void onAcksSent(int count) {
+    }
+
+    /** A draining stream left {@code count} served but unstarted units to engine redelivery. */
+    default void onLeftUnacked(int count) {
+    }
+}
@@ -2,6 +2,10 @@ package ai.pipestream.echo;
 
 import ai.pipestream.data.v1.PipeDoc;
 import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.load.BenchConfigs;
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import ai.pipestream.echo.work.RawWorkerConfig;
+import ai.pipestream.echo.work.RawWorkerLoop;
 import ai.pipestream.module.work.v1.AckConfirmed;
 import ai.pipestream.module.work.v1.ModuleWorkServiceGrpc;
 import ai.pipestream.module.work.v1.NoWorkAvailable;
@@ -14,11 +18,20 @@ import ai.pipestream.module.runtime.work.ModuleWorkEngineClient;
 import ai.pipestream.module.runtime.work.ModuleWorkerLoop;
 import ai.pipestream.module.runtime.work.WorkerLoopConfig;
 import com.google.protobuf.Any;
+import com.google.protobuf.ByteOutput;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
 import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import io.quarkus.runtime.StartupEvent;
 import io.quarkus.runtime.ShutdownEvent;
@@ -27,10 +40,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -38,7 +57,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Integration smoke test proving the bidi wiring between {@link EchoProcessor}
- * and {@link ModuleWorkerLoop} works end-to-end against an in-process fake engine.
+ * and {@link ModuleWorkerLoop}, and of echo's own {@link RawWorkerLoop}, works
+ * end-to-end against an in-process fake engine.
  *
  * <p>No real engine, Consul, Kafka, or Redis is required. The test runs entirely
  * in-process using {@link InProcessServerBuilder} / {@link InProcessChannelBuilder}.
@@ -55,9 +75,21 @@ import static org.assertj.core.api.Assertions.assertThat;
  *   <li>Fake engine replies {@code AckConfirmed} then {@code NoWorkAvailable} so
  *       the worker can exit cleanly.</li>
  * </ol>
+ *
+ * <p>The raw-loop tests run the same exchange through {@link RawWorkerLoop}, which acks
+ * the served {@code Any} without unpacking it, and then the raw loop's options on top:
+ * unchanged acks, batched pulls, prefetch, long-poll, heartbeats and the shutdown drain.
  */
 class EchoBidiWiringSmokeTest {
 
+    /** Batch-size header the raw worker sends; mirrors {@code RawWorkStream.MAX_WORK_UNITS}. */
+    private static final Metadata.Key<String> MAX_WORK_UNITS =
+            Metadata.Key.of("x-pipestream-max-work-units", Metadata.ASCII_STRING_MARSHALLER);
+
+    /** Long-poll header the raw worker sends; mirrors {@code RawWorkStream.LONG_POLL_MS}. */
+    private static final Metadata.Key<String> LONG_POLL_MS =
+            Metadata.Key.of("x-pipestream-long-poll-ms", Metadata.ASCII_STRING_MARSHALLER);
+
     private static final String STREAM_ID = "s-smoke";
     private static final String DOC_ID    = "d-smoke";
     private static final String WORK_UNIT_ID = "wu-smoke-" + UUID.randomUUID();
@@ -65,7 +97,9 @@ class EchoBidiWiringSmokeTest {
     private String serverName;
     private Server server;
     private FakeEngine fakeEngine;
+    private ModuleWorkEngineClient engineClient;
     private ModuleWorkerLoop<PipeStream> loop;
+    private RawWorkerLoop rawLoop;
 
     @BeforeEach
     void startInProcessServer() throws Exception {
@@ -74,13 +108,13 @@ class EchoBidiWiringSmokeTest {
 
         server = InProcessServerBuilder.forName(serverName)
                 .directExecutor()
-                .addService(fakeEngine)
+                .addService(ServerInterceptors.intercept(fakeEngine, fakeEngine.headerCapture()))
                 .build()
                 .start();
 
         AtomicReference<ManagedChannel> channelRef = new AtomicReference<>(
                 InProcessChannelBuilder.forName(serverName).directExecutor().build());
-        ModuleWorkEngineClient engineClient = new ModuleWorkEngineClient() {
+        engineClient = new ModuleWorkEngineClient() {
             @Override
             public ModuleWorkServiceGrpc.ModuleWorkServiceStub stub() {
                 return ModuleWorkServiceGrpc.newStub(channelRef.get());
@@ -105,6 +139,9 @@ class EchoBidiWiringSmokeTest {
 
     @AfterEach
     void stopAll() throws Exception {
+        if (rawLoop != null) {
+            rawLoop.stop();
+        }
         if (loop != null) {
             loop.onStop(new ShutdownEvent());
         }
@@ -151,17 +188,272 @@ class EchoBidiWiringSmokeTest {
                 .isEqualTo("echo");
     }
 
-    // ----- Test WorkerLoopConfig -----
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_acksOriginalPayloadBytesWithoutUnpacking() throws Exception {
+        PipeStream served = serve();
+        AtomicReference<Any> seen = new AtomicReference<>();
+
+        startRawLoop(payload -> {
+            seen.set(payload);
+            return payload;
+        }, rawTestConfig());
+
+        assertEngineVerifiedAcks("the raw WorkAck");
+        assertThat(fakeEngine.capturedAck.get().getUpdatedPayload().getValue())
+                .as("passthrough must hand back the served payload bytes untouched")
+                .isEqualTo(served.toByteString());
+        assertThat(backingArrayLength(seen.get().getValue()))
+                .as("with a zero aliasing threshold the payload must be a slice of the received "
+                        + "message, not a copy of its own")
+                .isGreaterThan(seen.get().getValue().size());
+        assertThat(fakeEngine.capturedHello.get().getHello().getModuleId())
+                .as("Hello.module_id must match the WorkerLoopConfig")
+                .isEqualTo("echo");
+    }
+
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_unchangedAckMode_omitsUpdatedPayload() throws Exception {
+        serve();
+        fakeEngine.acceptUnchangedAcks = true;
+
+        startRawLoop(new EchoPassthroughProcessor(), rawTestConfig("ack-unchanged-without-payload", "true"));
+
+        assertEngineVerifiedAcks("the unchanged WorkAck");
+        WorkAck ack = fakeEngine.capturedAck.get();
+        assertThat(ack.getStatus()).isEqualTo(ProcessingStatus.PROCESSING_STATUS_SUCCESS);
+        assertThat(ack.hasUpdatedPayload())
+                .as("an identity result must be acked as unchanged, without shipping the document back")
+                .isFalse();
+    }
+
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_batchMode_acksEveryUnitServedOnOneStream() throws Exception {
+        serve();
+        fakeEngine.unitsPerStream = 3;
+
+        startRawLoop(new EchoPassthroughProcessor(), rawTestConfig("batch-size", "3"));
+
+        assertEngineVerifiedAcks("all batched WorkAcks");
+        assertThat(fakeEngine.ackCount.get())
+                .as("every unit served on the batched stream must be acked exactly once")
+                .isEqualTo(3);
+        assertThat(fakeEngine.capturedMaxWorkUnits.get())
+                .as("worker must advertise its batch size on the stream")
+                .isEqualTo("3");
+    }
+
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_prefetch_readsAheadOnTheSameStream() throws Exception {
+        serve();
+        fakeEngine.unitsPerStream = 2;
+
+        startRawLoop(new EchoPassthroughProcessor(), rawTestConfig("batch-size", "2", "prefetch-depth", "1"));
+
+        assertEngineVerifiedAcks("both WorkAcks");
+        assertThat(fakeEngine.creditAfterFirstUnit.get())
+                .as("with prefetch the worker must already accept the next unit while the first is in hand")
+                .isTrue();
+        assertThat(fakeEngine.streamsAtLastAck.get())
+                .as("prefetch must read ahead on the open stream, never open another one")
+                .isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_longPoll_processesWorkPushedWhileParked() throws Exception {
+        serve();
+        fakeEngine.parkFirstHello = true;
+
+        startRawLoop(new EchoPassthroughProcessor(), rawTestConfig("long-poll", "10s"));
+
+        assertThat(fakeEngine.parkedLatch.await(5, TimeUnit.SECONDS))
+                .as("worker must open a stream and receive NoWorkAvailable")
+                .isTrue();
+        fakeEngine.pushParkedWork();
+
+        // NoWork asked for a 5 s retry; only a worker still parked on the stream acks this fast
+        assertThat(fakeEngine.ackVerifiedLatch.await(2, TimeUnit.SECONDS))
+                .as("work pushed onto the parked stream must be acked without waiting out the retry")
+                .isTrue();
+        assertThat(fakeEngine.assertionError.get()).isNull();
+        assertThat(fakeEngine.capturedLongPollMs.get())
+                .as("worker must advertise its long-poll window on the stream")
+                .isEqualTo("10000");
+    }
+
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_stop_drainsUnitAlreadyInHand() throws Exception {
+        serve();
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RawPayloadProcessor slow = payload -> {
+            processing.countDown();
+            release.await();
+            return payload;
+        };
+
+        RawWorkerLoop draining = new RawWorkerLoop(slow, engineClient, testConfig(), rawTestConfig());
+        draining.start();
+        assertThat(processing.await(5, TimeUnit.SECONDS))
+                .as("worker must pull the unit and start processing it")
+                .isTrue();
+
+        CompletableFuture<RawWorkerLoop.DrainResult> stopped = new CompletableFuture<>();
+        Thread stopper = Thread.ofPlatform().name("drain-stopper").start(
+                () -> stopped.complete(draining.stop(Duration.ofSeconds(10))));
+        // The processor is still held on the latch, so the only place stop() can park
+        // is its wait for the open stream to settle: once it parks, draining has begun.
+        awaitParked(stopper);
+        assertThat(stopped)
+                .as("stop must wait for the unit in hand instead of cancelling it")
+                .isNotDone();
+        assertThat(fakeEngine.ackVerifiedLatch.getCount())
+                .as("the held unit cannot have been acked yet")
+                .isEqualTo(1);
+        release.countDown();
+
+        RawWorkerLoop.DrainResult result = stopped.get(10, TimeUnit.SECONDS);
+        assertThat(fakeEngine.ackVerifiedLatch.getCount())
+                .as("the unit in hand when stop began must still be acked")
+                .isZero();
+        assertThat(fakeEngine.assertionError.get()).isNull();
+        assertThat(result)
+                .as("one unit drained, none abandoned")
+                .isEqualTo(new RawWorkerLoop.DrainResult(1, 0));
+    }
+
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_stop_leavesPrefetchedUnitsUnacked() throws Exception {
+        serve();
+        fakeEngine.unitsPerStream = 3;
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RawPayloadProcessor slow = payload -> {
+            processing.countDown();
+            release.await();
+            return payload;
+        };
+
+        RawWorkerLoop draining = new RawWorkerLoop(slow, engineClient, testConfig(),
+                rawTestConfig("batch-size", "3", "prefetch-depth", "2"));
+        draining.start();
+        assertThat(processing.await(5, TimeUnit.SECONDS))
+                .as("worker must pull the first unit and start processing it")
+                .isTrue();
+
+        CompletableFuture<RawWorkerLoop.DrainResult> stopped = new CompletableFuture<>();
+        Thread stopper = Thread.ofPlatform().name("drain-stopper").start(
+                () -> stopped.complete(draining.stop(Duration.ofSeconds(10))));
+        awaitParked(stopper);
+        release.countDown();
+
+        RawWorkerLoop.DrainResult result = stopped.get(10, TimeUnit.SECONDS);
+        assertThat(fakeEngine.assertionError.get()).isNull();
+        assertThat(fakeEngine.ackCount.get())
+                .as("only the unit in hand when stop began may be acked")
+                .isEqualTo(1);
+        assertThat(result)
+                .as("the unit in hand drained, the two sent ahead left for redelivery")
+                .isEqualTo(new RawWorkerLoop.DrainResult(1, 2));
+    }
+
+    @Test
+    @Timeout(20)
+    void rawWorkerLoop_heartbeatsUnitWhileProcessing() throws Exception {
+        serve();
+        // Held until the engine has seen two heartbeats for the unit, so it is provably
+        // still being processed across more than one interval.
+        RawPayloadProcessor slow = payload -> {
+            fakeEngine.heartbeatLatch.await();
+            return payload;
+        };
+
+        rawLoop = new RawWorkerLoop(slow, engineClient, testConfig(Duration.ofMillis(50)), rawTestConfig());
+        rawLoop.start();
+
+        assertThat(fakeEngine.heartbeatLatch.await(5, TimeUnit.SECONDS))
+                .as("engine must see heartbeats while the processor holds the unit")
+                .isTrue();
+        assertThat(fakeEngine.heartbeatUnitId.get())
+                .as("the heartbeat must name the unit in hand")
+                .isEqualTo(WORK_UNIT_ID);
+        assertEngineVerifiedAcks("the ack after the heartbeats");
+    }
+
+    // ----- Helpers -----
+
+    /** Waits until {@code thread} blocks in a timed or untimed wait. */
+    private static void awaitParked(Thread thread) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING && thread.getState() != Thread.State.WAITING) {
+            assertThat(System.nanoTime())
+                    .as("%s must park while the unit is held", thread.getName())
+                    .isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /** Scripts the fake engine to serve the smoke-test {@code PipeStream}, and returns it. */
+    private PipeStream serve() {
+        PipeStream served = PipeStream.newBuilder()
+                .setStreamId(STREAM_ID)
+                .setDocument(PipeDoc.newBuilder().setDocId(DOC_ID).build())
+                .build();
+        fakeEngine.setServedPipeStream(served, WORK_UNIT_ID);
+        return served;
+    }
+
+    private void startRawLoop(RawPayloadProcessor processor, RawWorkerConfig rawConfig) {
+        rawLoop = new RawWorkerLoop(processor, engineClient, testConfig(), rawConfig);
+        rawLoop.start();
+    }
+
+    /** Waits for the fake engine to verify every ack it expects, and surfaces what it found wrong. */
+    private void assertEngineVerifiedAcks(String what) throws InterruptedException {
+        assertThat(fakeEngine.ackVerifiedLatch.await(15, TimeUnit.SECONDS))
+                .as("fake engine must receive and verify " + what + " within 15 s")
+                .isTrue();
+        Throwable fakeEngineError = fakeEngine.assertionError.get();
+        assertThat(fakeEngineError)
+                .as("fake engine must not have encountered an assertion failure: "
+                        + (fakeEngineError != null ? fakeEngineError.getMessage() : ""))
+                .isNull();
+    }
+
+    /** Length of the array {@code bytes} is stored in, as handed out without copying. */
+    private static int backingArrayLength(ByteString bytes) throws IOException {
+        int[] length = {-1};
+        UnsafeByteOperations.unsafeWriteTo(bytes, new ByteOutput() {
+            @Override public void write(byte value) { }
+            @Override public void write(byte[] value, int offset, int len) { length[0] = value.length; }
+            @Override public void writeLazy(byte[] value, int offset, int len) { length[0] = value.length; }
+            @Override public void write(ByteBuffer value) { }
+            @Override public void writeLazy(ByteBuffer value) { }
+        });
+        return length[0];
+    }
+
+    // ----- Test configs -----
 
     private static WorkerLoopConfig testConfig() {
+        // Long heartbeat interval: suppress heartbeat traffic during the test
+        return testConfig(Duration.ofSeconds(60));
+    }
+
+    private static WorkerLoopConfig testConfig(Duration heartbeatInterval) {
         return new WorkerLoopConfig() {
             @Override public boolean enabled()                  { return true; }
             @Override public String moduleId()                  { return "echo"; }
             @Override public String grpcClientName()            { return "engine"; }
             @Override public int concurrency()                  { return 1; }
             @Override public int minConcurrency()               { return 1; }
-            // Long heartbeat interval: suppress heartbeat traffic during the test
-            @Override public Duration heartbeatInterval()       { return Duration.ofSeconds(60); }
+            @Override public Duration heartbeatInterval()       { return heartbeatInterval; }
             @Override public Duration reconnectInitialDelay()   { return Duration.ofMillis(50); }
             @Override public Duration reconnectMaxDelay()       { return Duration.ofSeconds(1); }
             // Short no-work retry so the loop exits quickly after AckConfirmed + NoWork
@@ -171,6 +463,29 @@ class EchoBidiWiringSmokeTest {
         };
     }
 
+    /**
+     * {@link RawWorkerConfig} with its declared defaults, the smoke-test settings below,
+     * and then {@code overrides} as alternating key/value pairs (keys without the
+     * {@code pipestream.echo.raw-worker.} prefix).
+     */
+    private static RawWorkerConfig rawTestConfig(String... overrides) {
+        Map<String, String> settings = new HashMap<>();
+        // Zero threshold: every response goes through the aliasing decode path
+        settings.put("aliasing-threshold", "0");
+        settings.put("max-inflight-bytes", "1M");
+        settings.put("ack-flush-interval", "200ms");
+        settings.put("prefetch-depth", "0");
+        settings.put("drain-timeout", "2s");
+        settings.put("idle-backoff.initial-delay", "10ms");
+        // One worker throughout: no multiplicative growth, no paced retirement
+        settings.put("ramp.fast", "false");
+        settings.put("ramp.retire-interval", "0s");
+        for (int i = 0; i < overrides.length; i += 2) {
+            settings.put(overrides[i], overrides[i + 1]);
+        }
+        return BenchConfigs.rawWorker(settings);
+    }
+
     // ----- Fake engine -----
 
     /**
@@ -178,11 +493,17 @@ class EchoBidiWiringSmokeTest {
      *
      * <p>Protocol:
      * <ol>
-     *   <li>On Hello: record the request, send one WorkUnit with the scripted PipeStream.</li>
-     *   <li>On WorkAck: assert status == SUCCESS and unpacked payload == served PipeStream;
-     *       reply AckConfirmed then complete the stream. Countdown {@link #ackVerifiedLatch}.</li>
+     *   <li>On Hello: record the request; with {@link #parkFirstHello} reply NoWorkAvailable
+     *       but keep the stream open until {@link #pushParkedWork()}, otherwise send {@link #unitsPerStream} WorkUnits (one by
+     *       default) carrying the scripted PipeStream.</li>
+     *   <li>On WorkAck: assert status == SUCCESS and unpacked payload == served PipeStream
+     *       (or, with {@link #acceptUnchangedAcks}, no payload at all, meaning "unchanged");
+     *       reply AckConfirmed, and once every served unit is acked complete the stream and
+     *       count down {@link #ackVerifiedLatch}.</li>
      *   <li>Second Hello (loop reopens after SUCCESS): reply NoWorkAvailable immediately so the
      *       loop sleeps via noWorkRetryAfter and the worker exits when running becomes false.</li>
+     *   <li>Client half-close: complete the stream if it is still open, as the engine does
+     *       for a draining worker.</li>
      * </ol>
      */
     private static final class FakeEngine extends ModuleWorkServiceGrpc.ModuleWorkServiceImplBase {
@@ -191,13 +512,38 @@ class EchoBidiWiringSmokeTest {
         private volatile PipeStream servedPipeStream;
         private volatile String workUnitId;
 
+        /** When set, a SUCCESS ack without updated_payload is accepted as "payload unchanged". */
+        volatile boolean acceptUnchangedAcks;
+
+        /** Units served on the first stream; above one exercises batched pulls and acks. */
+        volatile int unitsPerStream = 1;
+
+        /** When set, the first stream gets NoWorkAvailable and is held open for a push. */
+        volatile boolean parkFirstHello;
+        private volatile StreamObserver<WorkResponse> parkedStream;
+        final CountDownLatch parkedLatch = new CountDownLatch(1);
+
+        /** Whether the worker still had inbound credit right after the first unit was sent. */
+        final AtomicReference<Boolean> creditAfterFirstUnit = new AtomicReference<>();
+
+        /** Streams the worker had opened when the last expected ack arrived. */
+        final AtomicInteger streamsAtLastAck = new AtomicInteger();
+
         // Captures from the bidi exchange
         final AtomicReference<WorkRequest> capturedHello = new AtomicReference<>();
+        final AtomicReference<WorkAck>     capturedAck = new AtomicReference<>();
         final AtomicReference<Throwable>   assertionError = new AtomicReference<>();
+        final AtomicReference<String>      capturedMaxWorkUnits = new AtomicReference<>();
+        final AtomicReference<String>      capturedLongPollMs = new AtomicReference<>();
+        final AtomicInteger                ackCount = new AtomicInteger(0);
 
         /** Counted down once the WorkAck has been successfully verified. */
         final CountDownLatch ackVerifiedLatch = new CountDownLatch(1);
 
+        /** Counted down by each heartbeat; the first names {@link #heartbeatUnitId}. */
+        final CountDownLatch heartbeatLatch = new CountDownLatch(2);
+        final AtomicReference<String> heartbeatUnitId = new AtomicReference<>();
+
         /** Tracks how many Hello messages this fake has received (first vs. subsequent). */
         private final AtomicInteger helloCount = new AtomicInteger(0);
 
@@ -206,26 +552,88 @@ class EchoBidiWiringSmokeTest {
             this.workUnitId       = wuId;
         }
 
+        void pushParkedWork() {
+            serveUnits(parkedStream);
+        }
+
+        private void serveUnits(StreamObserver<WorkResponse> responseObserver) {
+            try {
+                for (int i = 0; i < unitsPerStream; i++) {
+                    responseObserver.onNext(WorkResponse.newBuilder()
+                            .setWorkUnit(WorkUnit.newBuilder()
+                                    .setWorkUnitId(unitId(i))
+                                    .setPayload(Any.pack(servedPipeStream))
+                                    .build())
+                            .build());
+                    if (i == 0 && responseObserver instanceof ServerCallStreamObserver<WorkResponse> call) {
+                        // The in-process transport is ready only while the client has requested more.
+                        creditAfterFirstUnit.compareAndSet(null, call.isReady());
+                    }
+                }
+            } catch (Exception e) {
+                assertionError.set(e);
+                ackVerifiedLatch.countDown();
+            }
+        }
+
+        private static void confirm(StreamObserver<WorkResponse> responseObserver, String ackedUnitId) {
+            responseObserver.onNext(WorkResponse.newBuilder()
+                    .setAckConfirmed(AckConfirmed.newBuilder()
+                            .setWorkUnitId(ackedUnitId)
+                            .setAccepted(true)
+                            .build())
+                    .build());
+        }
+
+        private String unitId(int index) {
+            return unitsPerStream == 1 ? workUnitId : workUnitId + "-" + index;
+        }
+
+        /** Records the batch size and long-poll window the worker advertised on the first stream. */
+        ServerInterceptor headerCapture() {
+            return new ServerInterceptor() {
+                @Override
+                public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+                        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                    String maxWorkUnits = headers.get(MAX_WORK_UNITS);
+                    if (maxWorkUnits != null) {
+                        capturedMaxWorkUnits.compareAndSet(null, maxWorkUnits);
+                    }
+                    String longPollMs = headers.get(LONG_POLL_MS);
+                    if (longPollMs != null) {
+                        capturedLongPollMs.compareAndSet(null, longPollMs);
+                    }
+                    return next.startCall(call, headers);
+                }
+            };
+        }
+
         @Override
         public StreamObserver<WorkRequest> work(StreamObserver<WorkResponse> responseObserver) {
+            AtomicBoolean completed = new AtomicBoolean();
+            Runnable complete = () -> {
+                if (completed.compareAndSet(false, true)) {
+                    responseObserver.onCompleted();
+                }
+            };
             return new StreamObserver<>() {
                 @Override
                 public void onNext(WorkRequest req) {
                     if (req.hasHello()) {
                         int count = helloCount.incrementAndGet();
                         if (count == 1) {
-                            // First Hello: capture it and serve the work unit
+                            // First Hello: capture it and serve the work unit(s), or park it
                             capturedHello.set(req);
-                            try {
+                            if (parkFirstHello) {
+                                parkedStream = responseObserver;
                                 responseObserver.onNext(WorkResponse.newBuilder()
-                                        .setWorkUnit(WorkUnit.newBuilder()
-                                                .setWorkUnitId(workUnitId)
-                                                .setPayload(Any.pack(servedPipeStream))
+                                        .setNoWork(NoWorkAvailable.newBuilder()
+                                                .setRetryAfterMs(5000)
                                                 .build())
                                         .build());
-                            } catch (Exception e) {
-                                assertionError.set(e);
-                                ackVerifiedLatch.countDown();
+                                parkedLatch.countDown();
+                            } else {
+                                serveUnits(responseObserver);
                             }
                         } else {
                             // Subsequent Hello: no work available — loop will sleep then exit
@@ -234,11 +642,13 @@ class EchoBidiWiringSmokeTest {
                                             .setRetryAfterMs(50)
                                             .build())
                                     .build());
-                            responseObserver.onCompleted();
+                            complete.run();
                         }
 
                     } else if (req.hasAck()) {
                         WorkAck ack = req.getAck();
+                        capturedAck.set(ack);
+                        int acked = ackCount.incrementAndGet();
                         try {
                             assertThat(ack.getStatus())
                                     .as("WorkAck.status must be PROCESSING_STATUS_SUCCESS "
@@ -246,39 +656,43 @@ class EchoBidiWiringSmokeTest {
                                     .isEqualTo(ProcessingStatus.PROCESSING_STATUS_SUCCESS);
 
                             assertThat(ack.getWorkUnitId())
-                                    .as("WorkAck.work_unit_id must echo back the id we served")
-                                    .isEqualTo(workUnitId);
-
-                            assertThat(ack.hasUpdatedPayload())
-                                    .as("WorkAck SUCCESS must carry updated_payload")
-                                    .isTrue();
-
-                            PipeStream echoed = ack.getUpdatedPayload().unpack(PipeStream.class);
-                            assertThat(echoed)
-                                    .as("EchoProcessor must return the exact PipeStream that was served "
-                                            + "(identity contract)")
-                                    .isEqualTo(servedPipeStream);
+                                    .as("WorkAck.work_unit_id must echo back an id we served")
+                                    .startsWith(workUnitId);
+
+                            if (ack.hasUpdatedPayload()) {
+                                PipeStream echoed = ack.getUpdatedPayload().unpack(PipeStream.class);
+                                assertThat(echoed)
+                                        .as("EchoProcessor must return the exact PipeStream that was served "
+                                                + "(identity contract)")
+                                        .isEqualTo(servedPipeStream);
+                            } else {
+                                assertThat(acceptUnchangedAcks)
+                                        .as("WorkAck SUCCESS must carry updated_payload unless the "
+                                                + "engine accepts unchanged acks")
+                                        .isTrue();
+                            }
 
                         } catch (InvalidProtocolBufferException | AssertionError e) {
                             assertionError.set(e);
-                        } finally {
                             ackVerifiedLatch.countDown();
                         }
 
-                        // Reply AckConfirmed and close this stream
-                        responseObserver.onNext(WorkResponse.newBuilder()
-                                .setAckConfirmed(AckConfirmed.newBuilder()
-                                        .setWorkUnitId(workUnitId)
-                                        .setAccepted(true)
-                                        .build())
-                                .build());
-                        responseObserver.onCompleted();
+                        // Reply AckConfirmed; close the stream once every served unit is acked
+                        confirm(responseObserver, ack.getWorkUnitId());
+                        if (acked >= unitsPerStream) {
+                            streamsAtLastAck.set(helloCount.get());
+                            ackVerifiedLatch.countDown();
+                            complete.run();
+                        }
+                    } else if (req.hasHeartbeat()) {
+                        // Lease extended; no response needed
+                        heartbeatUnitId.compareAndSet(null, req.getHeartbeat().getWorkUnitId());
+                        heartbeatLatch.countDown();
                     }
-                    // Heartbeats silently accepted — no response needed
                 }
 
                 @Override public void onError(Throwable t)  { /* client closed early; ignore */ }
-                @Override public void onCompleted()         { /* client half-closed; nothing to do */ }
+                @Override public void onCompleted()         { complete.run(); }
             };
         }
     }
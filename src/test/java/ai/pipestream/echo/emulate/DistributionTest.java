@@ -0,0 +1,68 @@
+package ai.pipestream.echo.emulate;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DistributionTest {
+
+    private static final int SAMPLES = 50_000;
+
+    @Test
+    void fixed_alwaysReturnsValue() {
+        assertThat(Distribution.fixed(7).sample(new SplittableRandom(1))).isEqualTo(7);
+    }
+
+    @Test
+    void uniform_staysWithinBounds() {
+        Distribution uniform = Distribution.uniform(10, 20);
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            assertThat(uniform.sample(random)).isBetween(10L, 20L);
+        }
+        assertThatThrownBy(() -> Distribution.uniform(5, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void logNormal_hasTheConfiguredMedianAndARightTail() {
+        long[] samples = draw(Distribution.logNormal(1_000_000, 0.5));
+
+        assertThat((double) samples[SAMPLES / 2])
+                .as("median must match the configured median")
+                .isBetween(950_000.0, 1_050_000.0);
+        assertThat(samples[(int) (SAMPLES * 0.99)] - samples[SAMPLES / 2])
+                .as("the tail above the median must be longer than the body below it")
+                .isGreaterThan(samples[SAMPLES / 2] - samples[(int) (SAMPLES * 0.01)]);
+    }
+
+    @Test
+    void replay_reproducesRecordedFrequencies() {
+        Histogram recorded = new Histogram(3);
+        recorded.recordValueWithCount(1_000, 90);
+        recorded.recordValueWithCount(50_000, 10);
+
+        long[] samples = draw(Distribution.replay(recorded));
+
+        long slow = Arrays.stream(samples).filter(v -> v > 10_000).count();
+        assertThat(slow / (double) SAMPLES)
+                .as("10%% of replayed values must come from the slow bucket")
+                .isBetween(0.09, 0.11);
+        assertThat(samples[0]).as("fast values replay at their recorded size").isBetween(1_000L, 1_001L);
+    }
+
+    private static long[] draw(Distribution distribution) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = distribution.sample(random);
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+}
@@ -0,0 +1,97 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.emulate.EmulationConfig.Failure.Mode;
+import ai.pipestream.echo.work.ProcessingFailedException;
+import com.google.protobuf.Any;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class FailureInjectingProcessorTest {
+
+    @Test
+    void selection_hitsTheConfiguredShareOfDocIds() {
+        FailureInjectingProcessor processor = processor(Mode.STATUS, 5.0, "echo");
+
+        int failing = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (processor.selected("doc-" + i)) {
+                failing++;
+            }
+        }
+
+        assertThat(failing / 100_000.0)
+                .as("5%% of doc ids must be selected")
+                .isCloseTo(0.05, within(0.005));
+    }
+
+    @Test
+    void selection_isDeterministicPerDocAndVariesWithSalt() {
+        FailureInjectingProcessor a = processor(Mode.STATUS, 50.0, "run-a");
+        FailureInjectingProcessor again = processor(Mode.STATUS, 50.0, "run-a");
+        FailureInjectingProcessor b = processor(Mode.STATUS, 50.0, "run-b");
+
+        int differs = 0;
+        for (int i = 0; i < 1_000; i++) {
+            String docId = "doc-" + i;
+            assertThat(again.selected(docId))
+                    .as("a redelivered document must fail again")
+                    .isEqualTo(a.selected(docId));
+            if (a.selected(docId) != b.selected(docId)) {
+                differs++;
+            }
+        }
+        assertThat(differs).as("a new salt must pick a different set").isGreaterThan(100);
+    }
+
+    @Test
+    void statusMode_failsSelectedDocsAndPassesTheRest() throws Exception {
+        FailureInjectingProcessor processor = processor(Mode.STATUS, 100.0, "echo");
+        FailureInjectingProcessor none = processor(Mode.STATUS, 0.0, "echo");
+        Any payload = payload("d1");
+
+        assertThatThrownBy(() -> processor.process(payload))
+                .isInstanceOf(ProcessingFailedException.class)
+                .hasMessageContaining("d1");
+        assertThat(none.process(payload)).isSameAs(payload);
+    }
+
+    @Test
+    void throwMode_escapesAsAnUnexpectedException() {
+        FailureInjectingProcessor processor = processor(Mode.THROW, 100.0, "echo");
+
+        assertThatThrownBy(() -> processor.process(payload("d1")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void timeoutMode_holdsTheDocument() throws Exception {
+        FailureInjectingProcessor processor = new FailureInjectingProcessor(
+                new EchoPassthroughProcessor(), Mode.TIMEOUT, 100.0, "echo", null, Duration.ofMillis(100));
+        Any payload = payload("d1");
+
+        long started = System.nanoTime();
+        Any result = processor.process(payload);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        assertThat(result).isSameAs(payload);
+    }
+
+    private static FailureInjectingProcessor processor(Mode mode, double percent, String salt) {
+        return new FailureInjectingProcessor(new EchoPassthroughProcessor(), mode, percent, salt, null, Duration.ZERO);
+    }
+
+    private static Any payload(String docId) {
+        return Any.pack(PipeStream.newBuilder()
+                .setStreamId("s1")
+                .setDocument(PipeDoc.newBuilder().setDocId(docId))
+                .build());
+    }
+}
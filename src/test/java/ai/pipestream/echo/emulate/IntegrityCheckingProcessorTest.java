@@ -0,0 +1,122 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.IntegrityConfig.Mode;
+import ai.pipestream.echo.work.LazyPipeStream;
+import ai.pipestream.echo.work.ProcessingFailedException;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntegrityCheckingProcessorTest {
+
+    private static final PipeStream STREAM = PipeStream.newBuilder()
+            .setStreamId("s1")
+            .setDocument(PipeDoc.newBuilder().setDocId("d1"))
+            .build();
+
+    @Test
+    void digest_ofRopeMatchesDigestOfFlatBytes() {
+        ByteString flat = PayloadResizingProcessor.pad(STREAM.toByteString(), 3 * 1024 * 1024);
+        CRC32C crc = new CRC32C();
+        crc.update(flat.toByteArray());
+
+        assertThat(IntegrityCheckingProcessor.digest(flat))
+                .as("walking the rope's pieces must equal a CRC over the copied bytes")
+                .isEqualTo((int) crc.getValue());
+    }
+
+    @Test
+    void stamp_thenVerify_passesAndStaysParseable() throws Exception {
+        IntegrityCheckingProcessor stamper = new IntegrityCheckingProcessor(
+                new EchoPassthroughProcessor(), Mode.STAMP, false);
+        IntegrityCheckingProcessor verifier = new IntegrityCheckingProcessor(
+                new EchoPassthroughProcessor(), Mode.VERIFY, true);
+
+        Any stamped = stamper.process(Any.pack(STREAM));
+
+        assertThat(LazyPipeStream.of(stamped).field(IntegrityCheckingProcessor.DIGEST_FIELD))
+                .as("stamp must add a 4-byte digest field")
+                .hasSize(4);
+        assertThat(stamped.unpack(PipeStream.class).getDocument().getDocId()).isEqualTo("d1");
+        assertThat(verifier.process(stamped)).isSameAs(stamped);
+    }
+
+    @Test
+    void stamp_replacesStaleDigestAndKeepsMatchingOne() throws Exception {
+        ByteString stamped = IntegrityCheckingProcessor.stamp(STREAM.toByteString());
+        assertThat(IntegrityCheckingProcessor.stamp(stamped))
+                .as("an already valid digest must be left alone")
+                .isSameAs(stamped);
+
+        ByteString padded = PayloadResizingProcessor.pad(stamped, 8 * 1024);
+        ByteString restamped = IntegrityCheckingProcessor.stamp(padded);
+
+        assertThat(restamped.size())
+                .as("the stale digest must be replaced, not accumulated")
+                .isEqualTo(padded.size());
+        assertThat(IntegrityCheckingProcessor.stamp(restamped)).isSameAs(restamped);
+    }
+
+    @Test
+    void verifyAndStamp_passesUnchangedStampedDocumentThrough() throws Exception {
+        Any stamped = Any.pack(STREAM).toBuilder()
+                .setValue(IntegrityCheckingProcessor.stamp(STREAM.toByteString()))
+                .build();
+        IntegrityCheckingProcessor processor = new IntegrityCheckingProcessor(
+                new EchoPassthroughProcessor(), Mode.VERIFY_AND_STAMP, true);
+
+        assertThat(processor.process(stamped))
+                .as("a verified, unchanged document keeps its digest and its instance")
+                .isSameAs(stamped);
+    }
+
+    @Test
+    void without_dropsOnlyTheFieldAndSharesTheRest() throws Exception {
+        ByteString stamped = IntegrityCheckingProcessor.stamp(STREAM.toByteString());
+
+        assertThat(UnknownFields.without(stamped, IntegrityCheckingProcessor.DIGEST_FIELD))
+                .as("dropping the digest leaves the original stream bytes")
+                .isEqualTo(STREAM.toByteString());
+        assertThat(UnknownFields.without(stamped, IntegrityCheckingProcessor.DIGEST_FIELD + 1))
+                .as("nothing to drop returns the message itself")
+                .isSameAs(stamped);
+    }
+
+    @Test
+    void verify_failsCorruptedDocument() throws Exception {
+        ByteString stamped = IntegrityCheckingProcessor.stamp(
+                PayloadResizingProcessor.pad(STREAM.toByteString(), 4096));
+        byte[] corrupted = stamped.toByteArray();
+        corrupted[corrupted.length / 2] ^= 0x01;
+        IntegrityCheckingProcessor verifier = new IntegrityCheckingProcessor(
+                new EchoPassthroughProcessor(), Mode.VERIFY, false);
+
+        Any payload = Any.pack(STREAM).toBuilder().setValue(ByteString.copyFrom(corrupted)).build();
+
+        assertThatThrownBy(() -> verifier.process(payload))
+                .isInstanceOf(ProcessingFailedException.class)
+                .hasMessageContaining("mismatch");
+    }
+
+    @Test
+    void verify_missingDigestFailsOnlyWhenRequired() throws Exception {
+        Any unstamped = Any.pack(STREAM);
+
+        assertThat(new IntegrityCheckingProcessor(new EchoPassthroughProcessor(), Mode.VERIFY, false)
+                .process(unstamped))
+                .as("unstamped documents pass unless a digest is required")
+                .isSameAs(unstamped);
+        assertThatThrownBy(() -> new IntegrityCheckingProcessor(new EchoPassthroughProcessor(), Mode.VERIFY, true)
+                .process(unstamped))
+                .isInstanceOf(ProcessingFailedException.class)
+                .hasMessageContaining("no integrity digest");
+    }
+}
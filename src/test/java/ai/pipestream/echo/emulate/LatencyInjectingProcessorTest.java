@@ -0,0 +1,53 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import com.google.protobuf.Any;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyInjectingProcessorTest {
+
+    private static final Any PAYLOAD = Any.pack(PipeStream.newBuilder().setStreamId("s1").build());
+
+    @Test
+    void fixedDelay_holdsDocumentThenPassesItThrough() throws Exception {
+        LatencyInjectingProcessor processor = new LatencyInjectingProcessor(
+                new EchoPassthroughProcessor(), Distribution.fixed(Duration.ofMillis(50).toNanos()));
+
+        long started = System.nanoTime();
+        Any result = processor.process(PAYLOAD);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        assertThat(result).as("the delayed document must come back unchanged").isSameAs(PAYLOAD);
+    }
+
+    @Test
+    void virtualThreads_sleepConcurrentlyWithoutAPlatformThreadEach() throws Exception {
+        LatencyInjectingProcessor processor = new LatencyInjectingProcessor(
+                new EchoPassthroughProcessor(), Distribution.fixed(Duration.ofMillis(200).toNanos()));
+
+        long started = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Any>> results = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                results.add(workers.submit(() -> processor.process(PAYLOAD)));
+            }
+            for (Future<Any> result : results) {
+                assertThat(result.get()).isSameAs(PAYLOAD);
+            }
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started))
+                .as("2000 documents delayed 200 ms each must overlap, not queue on carrier threads")
+                .isLessThan(Duration.ofSeconds(5));
+    }
+}
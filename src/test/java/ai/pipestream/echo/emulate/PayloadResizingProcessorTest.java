@@ -0,0 +1,75 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.emulate.EmulationConfig.Resize.Mode;
+import ai.pipestream.echo.work.LazyPipeStream;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadResizingProcessorTest {
+
+    private static final PipeStream STREAM = PipeStream.newBuilder()
+            .setStreamId("s1")
+            .setDocument(PipeDoc.newBuilder()
+                    .setDocId("d1")
+                    .setUnknownFields(UnknownFieldSet.newBuilder()
+                            .addField(100_000, UnknownFieldSet.Field.newBuilder()
+                                    .addLengthDelimited(ByteString.copyFromUtf8("body ".repeat(200)))
+                                    .build())
+                            .build()))
+            .build();
+
+    @Test
+    void pad_growsDocumentToTargetAndStaysParseable() throws Exception {
+        PayloadResizingProcessor processor = new PayloadResizingProcessor(
+                new EchoPassthroughProcessor(), Mode.PAD, Distribution.fixed(64 * 1024));
+
+        Any padded = processor.process(Any.pack(STREAM));
+
+        assertThat(padded.getValue().size())
+                .as("padded payload must land on the target size")
+                .isBetween(64 * 1024 - 16, 64 * 1024);
+        PipeStream parsed = padded.unpack(PipeStream.class);
+        assertThat(parsed.getStreamId()).isEqualTo("s1");
+        assertThat(parsed.getDocument().getDocId())
+                .as("the pad merges into the existing document instead of replacing it")
+                .isEqualTo("d1");
+        assertThat(parsed.getDocument().getUnknownFields().hasField(PayloadResizingProcessor.PAD_FIELD)).isTrue();
+        assertThat(LazyPipeStream.of(padded).docId())
+                .as("the lazy view must merge document occurrences like the parser does")
+                .isEqualTo("d1");
+    }
+
+    @Test
+    void pad_isDeterministicAndNeverShrinks() throws Exception {
+        PayloadResizingProcessor grow = new PayloadResizingProcessor(
+                new EchoPassthroughProcessor(), Mode.PAD, Distribution.fixed(10_000));
+        PayloadResizingProcessor tooSmall = new PayloadResizingProcessor(
+                new EchoPassthroughProcessor(), Mode.PAD, Distribution.fixed(10));
+        Any payload = Any.pack(STREAM);
+
+        assertThat(grow.process(payload).getValue())
+                .as("the same target must produce byte-identical pads")
+                .isEqualTo(grow.process(payload).getValue());
+        assertThat(tooSmall.process(payload)).isSameAs(payload);
+    }
+
+    @Test
+    void strip_keepsHeadersAndDocIdOnly() throws Exception {
+        PayloadResizingProcessor processor = new PayloadResizingProcessor(
+                new EchoPassthroughProcessor(), Mode.STRIP, null);
+
+        PipeStream stripped = processor.process(Any.pack(STREAM)).unpack(PipeStream.class);
+
+        assertThat(stripped).isEqualTo(PipeStream.newBuilder()
+                .setStreamId("s1")
+                .setDocument(PipeDoc.newBuilder().setDocId("d1"))
+                .build());
+    }
+}
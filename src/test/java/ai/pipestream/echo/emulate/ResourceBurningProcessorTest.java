@@ -0,0 +1,63 @@
+package ai.pipestream.echo.emulate;
+
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import com.google.protobuf.Any;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceBurningProcessorTest {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void cpuBurn_scalesWithPayloadSize() throws Exception {
+        Any small = payloadOf(1024);
+        Any large = payloadOf(20 * 1024);
+        ResourceBurningProcessor processor = new ResourceBurningProcessor(new EchoPassthroughProcessor(),
+                Duration.ofMillis(1).toNanos(), 0, Distribution.fixed(0));
+
+        long smallCpu = cpuTimeOf(() -> processor.process(small));
+        long largeCpu = cpuTimeOf(() -> processor.process(large));
+
+        assertThat(largeCpu)
+                .as("about 20 KiB at 1 ms/KiB must burn at least 20 ms of CPU")
+                .isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+        assertThat(largeCpu).isGreaterThan(smallCpu * 5);
+    }
+
+    @Test
+    void allocBurn_allocatesTheConfiguredBytes() throws Exception {
+        Any payload = payloadOf(16);
+        ResourceBurningProcessor processor = new ResourceBurningProcessor(new EchoPassthroughProcessor(),
+                0, 0, Distribution.fixed(8L << 20));
+
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        Any result = processor.process(payload);
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated)
+                .as("8 MiB per document must actually reach the heap")
+                .isGreaterThanOrEqualTo(8L << 20);
+        assertThat(result).isSameAs(payload);
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    private static long cpuTimeOf(Call call) throws Exception {
+        long before = THREADS.getCurrentThreadCpuTime();
+        call.run();
+        return THREADS.getCurrentThreadCpuTime() - before;
+    }
+
+    private static Any payloadOf(int bytes) {
+        return Any.pack(PipeStream.newBuilder().setStreamId("x".repeat(bytes)).build());
+    }
+}
@@ -0,0 +1,42 @@
+package ai.pipestream.echo.load;
+
+import java.util.SplittableRandom;
+
+/**
+ * When the next work unit is meant to arrive at the engine, independent of how fast
+ * workers take them: the arrival process of an open-loop run.
+ *
+ * <p>Implementations are stateful and used by one generator thread.
+ */
+@FunctionalInterface
+public interface ArrivalSchedule {
+
+    /** Nanoseconds between the previous intended arrival and the next one. */
+    long nextGapNanos();
+
+    /** Evenly spaced arrivals. */
+    static ArrivalSchedule constant(double perSecond) {
+        long gap = (long) (1e9 / perSecond);
+        return () -> gap;
+    }
+
+    /** Exponentially distributed gaps: independent arrivals at a mean rate. */
+    static ArrivalSchedule poisson(double perSecond, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double meanGapNanos = 1e9 / perSecond;
+        return () -> (long) (-Math.log(1.0 - random.nextDouble()) * meanGapNanos);
+    }
+
+    /**
+     * {@code burstSize} units at once, then silence, averaging {@code perSecond}:
+     * an intake blast every {@code burstSize / perSecond} seconds.
+     */
+    static ArrivalSchedule bursty(double perSecond, int burstSize) {
+        long burstGap = (long) (burstSize * 1e9 / perSecond);
+        int[] position = {0};
+        return () -> {
+            int n = position[0]++;
+            return n > 0 && n % burstSize == 0 ? burstGap : 0;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package ai.pipestream.echo.load;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ArrivalScheduleTest {
+
+    @Test
+    void constant_spacesArrivalsEvenly() {
+        ArrivalSchedule schedule = ArrivalSchedule.constant(1_000);
+
+        assertThat(schedule.nextGapNanos()).isEqualTo(1_000_000);
+        assertThat(schedule.nextGapNanos()).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void poisson_averagesTheTargetRate() {
+        ArrivalSchedule schedule = ArrivalSchedule.poisson(1_000, 42);
+
+        long total = 0;
+        for (int i = 0; i < 100_000; i++) {
+            total += schedule.nextGapNanos();
+        }
+
+        assertThat(total / 100_000.0)
+                .as("mean inter-arrival gap must match 1/rate")
+                .isCloseTo(1_000_000.0, within(20_000.0));
+    }
+
+    @Test
+    void bursty_deliversWholeBurstsAtTheMeanRate() {
+        ArrivalSchedule schedule = ArrivalSchedule.bursty(1_000, 100);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(schedule.nextGapNanos())
+                    .as("the first burst arrives at once")
+                    .isZero();
+        }
+        assertThat(schedule.nextGapNanos())
+                .as("the next burst comes after burstSize / rate")
+                .isEqualTo(100_000_000L);
+        assertThat(schedule.nextGapNanos()).isZero();
+    }
+}
@@ -0,0 +1,55 @@
+package ai.pipestream.echo.load;
+
+import ai.pipestream.echo.work.RawWorkerConfig;
+import ai.pipestream.module.runtime.work.WorkerLoopConfig;
+import io.quarkus.runtime.configuration.DurationConverter;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.runtime.configuration.MemorySizeConverter;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Worker configs for load runs, built outside Quarkus. */
+public final class BenchConfigs {
+
+    private BenchConfigs() {
+    }
+
+    /** A fixed pool of {@code concurrency} workers that starts at full size. */
+    public static WorkerLoopConfig workerLoop(int concurrency) {
+        return new WorkerLoopConfig() {
+            @Override public boolean enabled()                  { return true; }
+            @Override public String moduleId()                  { return "echo"; }
+            @Override public String grpcClientName()            { return "engine"; }
+            @Override public int concurrency()                  { return concurrency; }
+            @Override public int minConcurrency()               { return concurrency; }
+            @Override public Duration heartbeatInterval()       { return Duration.ofSeconds(60); }
+            @Override public Duration reconnectInitialDelay()   { return Duration.ofMillis(50); }
+            @Override public Duration reconnectMaxDelay()       { return Duration.ofSeconds(1); }
+            @Override public Duration noWorkRetryAfter()        { return Duration.ofMillis(50); }
+            @Override public Duration firstResponseTimeout()    { return Duration.ofSeconds(30); }
+            @Override public int idleRoundsBeforeExit()         { return Integer.MAX_VALUE; }
+        };
+    }
+
+    /**
+     * {@link RawWorkerConfig} with its declared defaults, overridden by
+     * {@code pipestream.echo.raw-worker.*} keys given without the prefix
+     * (e.g. {@code "virtual-threads" -> "true"}).
+     */
+    public static RawWorkerConfig rawWorker(Map<String, String> overrides) {
+        Map<String, String> properties = new HashMap<>();
+        overrides.forEach((key, value) -> properties.put("pipestream.echo.raw-worker." + key, value));
+        SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .withConverter(MemorySize.class, 100, new MemorySizeConverter())
+                .withConverter(Duration.class, 100, new DurationConverter())
+                .withSources(new PropertiesConfigSource(properties, "bench-overrides", 100))
+                .withMapping(RawWorkerConfig.class)
+                .build();
+        return config.getConfigMapping(RawWorkerConfig.class);
+    }
+}
@@ -0,0 +1,76 @@
+package ai.pipestream.echo.load;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.module.work.v1.WorkResponse;
+import ai.pipestream.module.work.v1.WorkUnit;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import io.grpc.KnownLength;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic documents of a given size, shared by the in-process load benchmarks and
+ * the JMH payload benchmarks in {@code src/jmh}.
+ */
+public final class BenchDocuments {
+
+    /**
+     * Body carried as an unknown field so the benchmarks need no knowledge of
+     * {@code PipeDoc}'s schema; protobuf keeps unknown fields through parse and
+     * serialize, so they cost what a real body of the same size would.
+     */
+    private static final int BODY_FIELD = 100_000;
+
+    static {
+        if (PipeDoc.getDescriptor().findFieldByNumber(BODY_FIELD) != null) {
+            throw new IllegalStateException("PipeDoc now defines field " + BODY_FIELD + "; pick another");
+        }
+    }
+
+    private BenchDocuments() {
+    }
+
+    /** A {@code PipeStream} whose serialized size is about {@code bytes}. */
+    public static PipeStream pipeStream(int bytes) {
+        byte[] body = new byte[bytes];
+        // Incompressible, so nothing in the path gets a free ride on repeated bytes.
+        new SplittableRandom(bytes).nextBytes(body);
+        PipeDoc doc = PipeDoc.newBuilder()
+                .setDocId("bench-" + bytes)
+                .setUnknownFields(UnknownFieldSet.newBuilder()
+                        .addField(BODY_FIELD, UnknownFieldSet.Field.newBuilder()
+                                .addLengthDelimited(ByteString.copyFrom(body))
+                                .build())
+                        .build())
+                .build();
+        return PipeStream.newBuilder()
+                .setStreamId("bench-stream")
+                .setDocument(doc)
+                .build();
+    }
+
+    /** The serialized {@code WorkResponse} the engine would send for {@code stream}. */
+    public static byte[] workResponse(PipeStream stream) {
+        return WorkResponse.newBuilder()
+                .setWorkUnit(WorkUnit.newBuilder()
+                        .setWorkUnitId("wu-bench")
+                        .setPayload(Any.pack(stream)))
+                .build()
+                .toByteArray();
+    }
+
+    /** gRPC hands marshallers {@link KnownLength} streams; mimic that. */
+    public static InputStream knownLength(byte[] bytes) {
+        class KnownLengthStream extends ByteArrayInputStream implements KnownLength {
+            KnownLengthStream() {
+                super(bytes);
+            }
+        }
+        return new KnownLengthStream();
+    }
+}
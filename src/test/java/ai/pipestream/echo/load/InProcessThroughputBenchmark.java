@@ -0,0 +1,106 @@
+package ai.pipestream.echo.load;
+
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.EchoProcessor;
+import ai.pipestream.echo.work.RawWorkerLoop;
+import ai.pipestream.module.runtime.work.ModuleWorkerLoop;
+import com.google.protobuf.Any;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Network-free throughput ceiling: worker loops running {@code EchoProcessor} (or the
+ * raw passthrough) against a {@link LoadGeneratingEngine} that serves as fast as it
+ * is pulled. Prints docs/s, send-to-ack latency percentiles and heap allocated per
+ * document for every combination of loop, thread mode and concurrency.
+ *
+ * <p>Run with {@code ./gradlew inProcessBenchmark}; tune with
+ * {@code -Dbench.docBytes=4096 -Dbench.units=50000 -Dbench.concurrency=8,64,512}.
+ */
+@Tag("benchmark")
+class InProcessThroughputBenchmark {
+
+    private static final int DOC_BYTES = Integer.getInteger("bench.docBytes", 4096);
+    private static final int UNITS = Integer.getInteger("bench.units", 50_000);
+    private static final String CONCURRENCY = System.getProperty("bench.concurrency", "8,64,512");
+
+    private record Run(String loop, String threads, int concurrency) {
+    }
+
+    @Test
+    void throughputCeiling() throws Exception {
+        Any payload = Any.pack(BenchDocuments.pipeStream(DOC_BYTES));
+        List<Run> runs = new ArrayList<>();
+        for (String c : CONCURRENCY.split(",")) {
+            int concurrency = Integer.parseInt(c.trim());
+            runs.add(new Run("module", "framework", concurrency));
+            runs.add(new Run("raw", "platform", concurrency));
+            runs.add(new Run("raw", "virtual", concurrency));
+        }
+
+        // Warm up JIT and the in-process transport; results discarded.
+        measure(new Run("raw", "platform", 8), payload, Math.max(1_000, UNITS / 5));
+
+        System.out.printf("%n%d docs of %d bytes per run%n", UNITS, DOC_BYTES);
+        System.out.printf("%-7s %-10s %6s %12s %10s %10s %10s %14s%n",
+                "loop", "threads", "conc", "docs/s", "p50 us", "p99 us", "p999 us", "alloc B/doc");
+        for (Run run : runs) {
+            measure(run, payload, UNITS);
+        }
+    }
+
+    private void measure(Run run, Any payload, int units) throws Exception {
+        try (LoadGeneratingEngine engine = new LoadGeneratingEngine(payload, units, 0).start()) {
+            Runnable stop = startLoop(run, engine);
+            long allocatedBefore = allocatedBytes();
+            long started = System.nanoTime();
+            boolean done = engine.awaitAllAcked(Duration.ofMinutes(10));
+            long elapsed = System.nanoTime() - started;
+            long allocated = allocatedBytes() - allocatedBefore;
+            stop.run();
+
+            assertThat(done).as("%s: every unit must be acked", run).isTrue();
+            Histogram latencies = engine.latencies();
+            System.out.printf("%-7s %-10s %6d %12.0f %10.1f %10.1f %10.1f %14d%n",
+                    run.loop(), run.threads(), run.concurrency(),
+                    units / (elapsed / 1e9),
+                    latencies.getValueAtPercentile(50) / 1e3,
+                    latencies.getValueAtPercentile(99) / 1e3,
+                    latencies.getValueAtPercentile(99.9) / 1e3,
+                    allocated / units);
+        }
+    }
+
+    private static Runnable startLoop(Run run, LoadGeneratingEngine engine) {
+        if (run.loop().equals("module")) {
+            ModuleWorkerLoop<PipeStream> loop = new ModuleWorkerLoop<>(
+                    PipeStream.class, new EchoProcessor(), engine.client(), BenchConfigs.workerLoop(run.concurrency()));
+            loop.onStart(new StartupEvent());
+            return () -> loop.onStop(new ShutdownEvent());
+        }
+        RawWorkerLoop loop = new RawWorkerLoop(new EchoPassthroughProcessor(), engine.client(),
+                BenchConfigs.workerLoop(run.concurrency()),
+                BenchConfigs.rawWorker(Map.of(
+                        "virtual-threads", Boolean.toString(run.threads().equals("virtual")),
+                        "drain-timeout", "0s")));
+        loop.start();
+        return loop::stop;
+    }
+
+    /** Heap allocated so far by all threads, virtual ones included via their carriers. */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+}
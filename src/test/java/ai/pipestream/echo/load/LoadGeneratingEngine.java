@@ -0,0 +1,320 @@
+package ai.pipestream.echo.load;
+
+import ai.pipestream.module.runtime.work.ModuleWorkEngineClient;
+import ai.pipestream.module.work.v1.AckConfirmed;
+import ai.pipestream.module.work.v1.ModuleWorkServiceGrpc;
+import ai.pipestream.module.work.v1.NoWorkAvailable;
+import ai.pipestream.module.work.v1.ProcessingStatus;
+import ai.pipestream.module.work.v1.WorkAck;
+import ai.pipestream.module.work.v1.WorkRequest;
+import ai.pipestream.module.work.v1.WorkResponse;
+import ai.pipestream.module.work.v1.WorkUnit;
+import com.google.protobuf.Any;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process engine that serves a fixed number of work units to whatever worker
+ * connects, one unit per stream as the real engine does, and records each unit's
+ * latency up to its {@code WorkAck} in an HdrHistogram.
+ *
+ * <p>Closed loop (the constructor): with a target rate the n-th unit is not handed out
+ * before {@code n / rate} seconds into the run (the reply to an early {@code Hello} is
+ * delayed, not refused); at rate zero units go out as fast as workers ask. Latency
+ * runs from send to ack, so it only ever sees the load the workers let through.
+ *
+ * <p>Open loop ({@link #openLoop}): a generator enqueues units on an
+ * {@link ArrivalSchedule} whether or not workers keep up, pulls take from that
+ * backlog and get {@code NoWorkAvailable} while it is empty. Latency runs from each
+ * unit's <em>intended</em> arrival to its ack, so backlog growth and generator
+ * hiccups are charged to the worker instead of being coordinated away.
+ *
+ * <p>Once every unit has been served, further pulls get {@code NoWorkAvailable}.
+ *
+ * <pre>{@code
+ * try (LoadGeneratingEngine engine = new LoadGeneratingEngine(payload, 100_000, 0).start()) {
+ *     // run a worker loop against engine.client()
+ *     engine.awaitAllAcked(Duration.ofMinutes(1));
+ *     Histogram latencies = engine.latencies();
+ * }
+ * }</pre>
+ */
+public final class LoadGeneratingEngine extends ModuleWorkServiceGrpc.ModuleWorkServiceImplBase
+        implements AutoCloseable {
+
+    /** Retry hint while an open-loop backlog is momentarily empty. */
+    private static final long EMPTY_BACKLOG_RETRY_MS = 1;
+
+    private record Arrival(long n, long intendedNanos) {
+    }
+
+    private final Any payload;
+    private final long totalUnits;
+    private final double unitsPerSecond;
+    private final ArrivalSchedule schedule;
+    private final Queue<Arrival> backlog = new ConcurrentLinkedQueue<>();
+    private final AtomicLong enqueued = new AtomicLong();
+    private Thread generator;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Map<String, Long> sentNanos = new ConcurrentHashMap<>();
+    private final Recorder recorder = new Recorder(3);
+    private final CountDownLatch allAcked;
+    private final ScheduledExecutorService pacer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("load-engine-pacer").daemon(true).factory());
+
+    private final String serverName = "load-engine-" + UUID.randomUUID();
+    private final AtomicReference<ManagedChannel> channel = new AtomicReference<>();
+    private Server server;
+    private volatile long startNanos;
+
+    /**
+     * @param payload        served as every unit's payload
+     * @param totalUnits     units to serve before answering {@code NoWorkAvailable}
+     * @param unitsPerSecond pacing of the served units; zero serves as fast as pulled
+     */
+    public LoadGeneratingEngine(Any payload, long totalUnits, double unitsPerSecond) {
+        this(payload, totalUnits, unitsPerSecond, null);
+    }
+
+    private LoadGeneratingEngine(Any payload, long totalUnits, double unitsPerSecond, ArrivalSchedule schedule) {
+        this.payload = payload;
+        this.totalUnits = totalUnits;
+        this.unitsPerSecond = unitsPerSecond;
+        this.schedule = schedule;
+        this.allAcked = new CountDownLatch(1);
+    }
+
+    /** An open-loop engine: {@code totalUnits} arrive on {@code schedule} from {@link #start()}. */
+    public static LoadGeneratingEngine openLoop(Any payload, long totalUnits, ArrivalSchedule schedule) {
+        return new LoadGeneratingEngine(payload, totalUnits, 0, schedule);
+    }
+
+    public LoadGeneratingEngine start() throws IOException {
+        server = InProcessServerBuilder.forName(serverName)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .addService(this)
+                .build()
+                .start();
+        channel.set(InProcessChannelBuilder.forName(serverName).build());
+        startNanos = System.nanoTime();
+        if (schedule != null) {
+            generator = Thread.ofPlatform().name("load-engine-arrivals").daemon(true).start(this::generateArrivals);
+        }
+        return this;
+    }
+
+    /** Engine client for the worker loop under test; reconnect swaps in a fresh channel. */
+    public ModuleWorkEngineClient client() {
+        return new ModuleWorkEngineClient() {
+            @Override
+            public ModuleWorkServiceGrpc.ModuleWorkServiceStub stub() {
+                return ModuleWorkServiceGrpc.newStub(channel.get());
+            }
+
+            @Override
+            public void reconnect() {
+                ManagedChannel old = channel.getAndSet(InProcessChannelBuilder.forName(serverName).build());
+                old.shutdownNow();
+            }
+        };
+    }
+
+    /** Waits until every unit has been acked; false on timeout. */
+    public boolean awaitAllAcked(Duration timeout) throws InterruptedException {
+        return allAcked.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Latency in nanoseconds (send-to-ack closed loop, intended-arrival-to-ack open
+     * loop) of every unit acked since the previous call.
+     */
+    public Histogram latencies() {
+        return recorder.getIntervalHistogram();
+    }
+
+    /**
+     * Writes {@code histogram} as {@code <name>.hgrm} (percentile distribution in
+     * microseconds, readable by the HdrHistogram plotter) and {@code <name>.hlog}
+     * (the lossless histogram log) under {@code directory}.
+     */
+    public static void writeHistogram(Histogram histogram, Path directory, String name) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+            histogram.outputPercentileDistribution(out, 1_000.0);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hlog")))) {
+            HistogramLogWriter log = new HistogramLogWriter(out);
+            log.outputLogFormatVersion();
+            log.outputLegend();
+            log.outputIntervalHistogram(histogram);
+        }
+    }
+
+    /** Units that have arrived but not yet been pulled (open loop). */
+    public int backlog() {
+        return backlog.size();
+    }
+
+    public long acked() {
+        return acked.get();
+    }
+
+    /** Units acked with a status other than SUCCESS. */
+    public long failed() {
+        return failed.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (generator != null) {
+            generator.interrupt();
+        }
+        pacer.shutdownNow();
+        ManagedChannel current = channel.get();
+        if (current != null) {
+            current.shutdownNow();
+        }
+        if (server != null) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public StreamObserver<WorkRequest> work(StreamObserver<WorkResponse> responseObserver) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(WorkRequest request) {
+                if (request.hasHello()) {
+                    serveNext(responseObserver);
+                } else if (request.hasAck()) {
+                    onAck(request.getAck(), responseObserver);
+                }
+            }
+
+            @Override public void onError(Throwable t)  { /* worker went away; its unit is simply lost */ }
+            @Override public void onCompleted()         { /* worker half-closed */ }
+        };
+    }
+
+    /** Enqueues each unit at its intended time; falling behind enqueues the overdue ones at once. */
+    private void generateArrivals() {
+        long intended = startNanos;
+        for (long n = 0; n < totalUnits; n++) {
+            intended += schedule.nextGapNanos();
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    return;
+                }
+            }
+            backlog.add(new Arrival(n, intended));
+            enqueued.incrementAndGet();
+        }
+    }
+
+    private void serveNext(StreamObserver<WorkResponse> responseObserver) {
+        if (schedule != null) {
+            serveFromBacklog(responseObserver);
+            return;
+        }
+        long n = issued.getAndIncrement();
+        if (n >= totalUnits) {
+            synchronized (responseObserver) {
+                responseObserver.onNext(WorkResponse.newBuilder()
+                        .setNoWork(NoWorkAvailable.newBuilder().setRetryAfterMs(50))
+                        .build());
+                responseObserver.onCompleted();
+            }
+            return;
+        }
+        long delayNanos = unitsPerSecond > 0
+                ? startNanos + (long) (n * 1e9 / unitsPerSecond) - System.nanoTime()
+                : 0;
+        if (delayNanos > 0) {
+            pacer.schedule(() -> send(n, responseObserver), delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+            send(n, responseObserver);
+        }
+    }
+
+    private void serveFromBacklog(StreamObserver<WorkResponse> responseObserver) {
+        Arrival next = backlog.poll();
+        if (next != null) {
+            send(next.n(), next.intendedNanos(), responseObserver);
+            return;
+        }
+        boolean exhausted = enqueued.get() >= totalUnits;
+        synchronized (responseObserver) {
+            responseObserver.onNext(WorkResponse.newBuilder()
+                    .setNoWork(NoWorkAvailable.newBuilder().setRetryAfterMs(exhausted ? 50 : EMPTY_BACKLOG_RETRY_MS))
+                    .build());
+            responseObserver.onCompleted();
+        }
+    }
+
+    private void send(long n, StreamObserver<WorkResponse> responseObserver) {
+        send(n, System.nanoTime(), responseObserver);
+    }
+
+    /** @param latencyFromNanos what the unit's latency is measured from */
+    private void send(long n, long latencyFromNanos, StreamObserver<WorkResponse> responseObserver) {
+        String unitId = "wu-" + n;
+        sentNanos.put(unitId, latencyFromNanos);
+        synchronized (responseObserver) {
+            responseObserver.onNext(WorkResponse.newBuilder()
+                    .setWorkUnit(WorkUnit.newBuilder()
+                            .setWorkUnitId(unitId)
+                            .setPayload(payload))
+                    .build());
+        }
+    }
+
+    private void onAck(WorkAck ack, StreamObserver<WorkResponse> responseObserver) {
+        Long sent = sentNanos.remove(ack.getWorkUnitId());
+        if (sent != null) {
+            recorder.recordValue(System.nanoTime() - sent);
+        }
+        if (ack.getStatus() != ProcessingStatus.PROCESSING_STATUS_SUCCESS) {
+            failed.incrementAndGet();
+        }
+        synchronized (responseObserver) {
+            responseObserver.onNext(WorkResponse.newBuilder()
+                    .setAckConfirmed(AckConfirmed.newBuilder()
+                            .setWorkUnitId(ack.getWorkUnitId())
+                            .setAccepted(true))
+                    .build());
+            responseObserver.onCompleted();
+        }
+        if (acked.incrementAndGet() == totalUnits) {
+            allAcked.countDown();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ai.pipestream.echo.load;
+
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.work.RawPayloadProcessor;
+import ai.pipestream.echo.work.RawWorkerLoop;
+import com.google.protobuf.Any;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadGeneratingEngineTest {
+
+    @Test
+    @Timeout(30)
+    void rawLoop_acksEveryServedUnit_andLatencyIsRecorded() throws Exception {
+        Any payload = Any.pack(PipeStream.newBuilder().setStreamId("s1").build());
+        try (LoadGeneratingEngine engine = new LoadGeneratingEngine(payload, 500, 0).start()) {
+            RawWorkerLoop loop = new RawWorkerLoop(new EchoPassthroughProcessor(), engine.client(),
+                    BenchConfigs.workerLoop(4), BenchConfigs.rawWorker(Map.of()));
+            loop.start();
+            try {
+                assertThat(engine.awaitAllAcked(Duration.ofSeconds(20)))
+                        .as("every unit the engine serves must come back acked")
+                        .isTrue();
+            } finally {
+                loop.stop(Duration.ZERO);
+            }
+
+            Histogram latencies = engine.latencies();
+            assertThat(latencies.getTotalCount()).isEqualTo(500);
+            assertThat(engine.failed()).isZero();
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void targetRate_pacesServedUnits() throws Exception {
+        Any payload = Any.pack(PipeStream.newBuilder().setStreamId("s1").build());
+        try (LoadGeneratingEngine engine = new LoadGeneratingEngine(payload, 50, 100).start()) {
+            RawWorkerLoop loop = new RawWorkerLoop(new EchoPassthroughProcessor(), engine.client(),
+                    BenchConfigs.workerLoop(4), BenchConfigs.rawWorker(Map.of()));
+            long started = System.nanoTime();
+            loop.start();
+            try {
+                assertThat(engine.awaitAllAcked(Duration.ofSeconds(20))).isTrue();
+            } finally {
+                loop.stop(Duration.ZERO);
+            }
+
+            assertThat(Duration.ofNanos(System.nanoTime() - started))
+                    .as("50 units at 100/s must take roughly half a second, not arrive at once")
+                    .isGreaterThanOrEqualTo(Duration.ofMillis(450));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void openLoop_measuresFromIntendedArrival() throws Exception {
+        Any payload = Any.pack(PipeStream.newBuilder().setStreamId("s1").build());
+        // 100 units land together 200 ms in, on one worker that takes 2 ms each:
+        // the last one out waits behind the other 99.
+        long[] arrivals = {0};
+        ArrivalSchedule oneBurst = () -> arrivals[0]++ == 0 ? Duration.ofMillis(200).toNanos() : 0;
+        RawPayloadProcessor slow = unit -> {
+            Thread.sleep(2);
+            return unit;
+        };
+        try (LoadGeneratingEngine engine = LoadGeneratingEngine.openLoop(payload, 100, oneBurst).start()) {
+            RawWorkerLoop loop = new RawWorkerLoop(slow, engine.client(),
+                    BenchConfigs.workerLoop(1), BenchConfigs.rawWorker(Map.of()));
+            loop.start();
+            try {
+                assertThat(engine.awaitAllAcked(Duration.ofSeconds(20))).isTrue();
+            } finally {
+                loop.stop(Duration.ZERO);
+            }
+
+            Histogram latencies = engine.latencies();
+            assertThat(latencies.getTotalCount()).isEqualTo(100);
+            assertThat(latencies.getMaxValue())
+                    .as("queueing behind the burst must show up in the latency, not be coordinated away")
+                    .isGreaterThan(latencies.getValueAtPercentile(1) * 10);
+        }
+    }
+}
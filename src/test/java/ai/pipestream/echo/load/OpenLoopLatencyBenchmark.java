@@ -0,0 +1,69 @@
+package ai.pipestream.echo.load;
+
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.echo.EchoPassthroughProcessor;
+import ai.pipestream.echo.work.RawWorkerLoop;
+import com.google.protobuf.Any;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Open-loop latency of the raw worker loop: units arrive at the fake engine on a
+ * constant, Poisson or bursty schedule regardless of how fast echo takes them, and
+ * latency is measured from intended arrival to ack. Writes {@code <schedule>.hgrm}
+ * and {@code .hlog} under {@code build/bench/open-loop}.
+ *
+ * <p>Run with {@code ./gradlew inProcessBenchmark}; tune with
+ * {@code -Dbench.rate=5000 -Dbench.units=50000 -Dbench.burst=2000 -Dbench.concurrency=64}.
+ */
+@Tag("benchmark")
+class OpenLoopLatencyBenchmark {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("bench.rate", "5000"));
+    private static final int UNITS = Integer.getInteger("bench.units", 50_000);
+    private static final int BURST = Integer.getInteger("bench.burst", 2_000);
+    private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 64);
+    private static final Path OUTPUT = Path.of(System.getProperty("bench.output", "build/bench/open-loop"));
+
+    @ParameterizedTest
+    @ValueSource(strings = {"constant", "poisson", "bursty"})
+    void intendedArrivalToAck(String shape) throws Exception {
+        ArrivalSchedule schedule = switch (shape) {
+            case "constant" -> ArrivalSchedule.constant(RATE);
+            case "poisson" -> ArrivalSchedule.poisson(RATE, 42);
+            case "bursty" -> ArrivalSchedule.bursty(RATE, BURST);
+            default -> throw new IllegalArgumentException(shape);
+        };
+        Any payload = Any.pack(PipeStream.newBuilder().setStreamId("bench-stream").build());
+
+        try (LoadGeneratingEngine engine = LoadGeneratingEngine.openLoop(payload, UNITS, schedule).start()) {
+            RawWorkerLoop loop = new RawWorkerLoop(new EchoPassthroughProcessor(), engine.client(),
+                    BenchConfigs.workerLoop(CONCURRENCY), BenchConfigs.rawWorker(Map.of("drain-timeout", "0s")));
+            loop.start();
+            boolean done;
+            try {
+                done = engine.awaitAllAcked(Duration.ofSeconds((long) (UNITS / RATE) + 120));
+            } finally {
+                loop.stop();
+            }
+            assertThat(done).as("every scheduled unit must be acked").isTrue();
+
+            Histogram latencies = engine.latencies();
+            LoadGeneratingEngine.writeHistogram(latencies, OUTPUT, shape);
+            System.out.printf("%-8s %8.0f/s  p50 %9.1f us  p99 %9.1f us  p999 %9.1f us  max %9.1f us%n",
+                    shape, RATE,
+                    latencies.getValueAtPercentile(50) / 1e3,
+                    latencies.getValueAtPercentile(99) / 1e3,
+                    latencies.getValueAtPercentile(99.9) / 1e3,
+                    latencies.getMaxValue() / 1e3);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ai.pipestream.echo.work;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void flatLatency_growsLimitToCeiling() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 4, 2.0, 0.5, 5);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onAckRoundTrip(10 * MS);
+        }
+
+        assertThat(limit.limit())
+                .as("limit must grow while ack latency stays flat, but never past the ceiling")
+                .isEqualTo(4);
+    }
+
+    @Test
+    void risingLatency_backsOffButNotBelowFloor() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 64, 2.0, 0.5, 5);
+        for (int i = 0; i < 200; i++) {
+            limit.onAckRoundTrip(10 * MS);
+        }
+        int grown = limit.limit();
+
+        for (int i = 0; i < 10; i++) {
+            limit.onAckRoundTrip(200 * MS);
+        }
+
+        assertThat(limit.limit())
+                .as("a latency spike must cut the limit")
+                .isLessThan(grown)
+                .isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void fixed_neverMoves() {
+        AdaptiveConcurrencyLimit limit = AdaptiveConcurrencyLimit.fixed(8);
+
+        limit.onAckRoundTrip(10 * MS);
+        limit.onAckRoundTrip(500 * MS);
+
+        assertThat(limit.limit()).isEqualTo(8);
+    }
+}
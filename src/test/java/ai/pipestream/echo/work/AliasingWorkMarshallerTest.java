@@ -0,0 +1,92 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import ai.pipestream.module.work.v1.WorkResponse;
+import ai.pipestream.module.work.v1.WorkUnit;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteOutput;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.KnownLength;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AliasingWorkMarshallerTest {
+
+    private static final WorkResponse RESPONSE = WorkResponse.newBuilder()
+            .setWorkUnit(WorkUnit.newBuilder()
+                    .setWorkUnitId("wu-1")
+                    .setPayload(Any.pack(PipeStream.newBuilder()
+                            .setStreamId("s1")
+                            .setDocument(PipeDoc.newBuilder().setDocId("d1").build())
+                            .build())))
+            .build();
+
+    @Test
+    void aboveThreshold_decodesWithAliasing() {
+        AliasingWorkMarshaller marshaller = new AliasingWorkMarshaller(0);
+
+        WorkResponse parsed = marshaller.parse(knownLength(RESPONSE.toByteArray()));
+
+        assertThat(parsed)
+                .as("aliasing decode must yield the same message")
+                .isEqualTo(RESPONSE);
+        assertThat(backingArrayLength(parsed.getWorkUnit().getPayload().getValue()))
+                .as("the payload must be a slice of the drained message, not a copy of its own")
+                .isEqualTo(RESPONSE.getSerializedSize());
+    }
+
+    @Test
+    void belowThreshold_fallsBackToStockParser() {
+        AliasingWorkMarshaller marshaller = new AliasingWorkMarshaller(Long.MAX_VALUE);
+
+        WorkResponse parsed = marshaller.parse(knownLength(RESPONSE.toByteArray()));
+
+        assertThat(parsed).isEqualTo(RESPONSE);
+        assertThat(backingArrayLength(parsed.getWorkUnit().getPayload().getValue()))
+                .as("the stock parser copies the payload into an array of its own")
+                .isEqualTo(parsed.getWorkUnit().getPayload().getValue().size());
+    }
+
+    @Test
+    void stream_roundTrips() {
+        AliasingWorkMarshaller marshaller = new AliasingWorkMarshaller(0);
+
+        assertThat(marshaller.parse(marshaller.stream(RESPONSE))).isEqualTo(RESPONSE);
+    }
+
+    /** Length of the array {@code bytes} is stored in, as handed out without copying. */
+    static int backingArrayLength(ByteString bytes) {
+        int[] length = {-1};
+        try {
+            UnsafeByteOperations.unsafeWriteTo(bytes, new ByteOutput() {
+                @Override public void write(byte value) { }
+                @Override public void write(byte[] value, int offset, int len) { length[0] = value.length; }
+                @Override public void writeLazy(byte[] value, int offset, int len) { length[0] = value.length; }
+                @Override public void write(ByteBuffer value) { }
+                @Override public void writeLazy(ByteBuffer value) { }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return length[0];
+    }
+
+    /** gRPC hands marshallers {@link KnownLength} streams; mimic that. */
+    private static InputStream knownLength(byte[] bytes) {
+        class KnownLengthStream extends ByteArrayInputStream implements KnownLength {
+            KnownLengthStream() {
+                super(bytes);
+            }
+        }
+        return new KnownLengthStream();
+    }
+}
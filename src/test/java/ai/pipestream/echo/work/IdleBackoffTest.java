@@ -0,0 +1,86 @@
+package ai.pipestream.echo.work;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdleBackoffTest {
+
+    private static final Duration INITIAL = Duration.ofMillis(100);
+    private static final Duration CEILING = Duration.ofSeconds(3);
+
+    @Test
+    void delays_stayBetweenInitialAndCeiling() {
+        IdleBackoff backoff = new IdleBackoff(INITIAL, new SplittableRandom(42));
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(backoff.next(CEILING))
+                    .as("every idle delay must lie within [initial, ceiling]")
+                    .isBetween(INITIAL, CEILING);
+        }
+    }
+
+    @Test
+    void consecutiveIdlePolls_growTowardCeiling() {
+        IdleBackoff backoff = new IdleBackoff(INITIAL, new SplittableRandom(7));
+
+        Duration first = backoff.next(CEILING);
+        for (int i = 0; i < 30; i++) {
+            backoff.next(CEILING);
+        }
+        Duration late = Duration.ZERO;
+        for (int i = 0; i < 20; i++) {
+            late = late.plus(backoff.next(CEILING));
+        }
+        late = late.dividedBy(20);
+
+        assertThat(first)
+                .as("the first idle delay can be at most 3x the initial delay")
+                .isLessThanOrEqualTo(INITIAL.multipliedBy(3));
+        assertThat(late)
+                .as("after a long idle spell the mean delay must have grown well past the initial delay")
+                .isGreaterThan(INITIAL.multipliedBy(3));
+    }
+
+    @Test
+    void reset_restartsFromInitialDelay() {
+        IdleBackoff backoff = new IdleBackoff(INITIAL, new SplittableRandom(1));
+        for (int i = 0; i < 50; i++) {
+            backoff.next(CEILING);
+        }
+
+        backoff.reset();
+
+        assertThat(backoff.next(CEILING))
+                .as("after work arrives the next idle delay must start from the initial range again")
+                .isLessThanOrEqualTo(INITIAL.multipliedBy(3));
+    }
+
+    @Test
+    void ceilingBelowInitial_isHonoured() {
+        IdleBackoff backoff = new IdleBackoff(INITIAL, new SplittableRandom(3));
+
+        assertThat(backoff.next(Duration.ofMillis(20)))
+                .as("an engine retry hint below the initial delay wins")
+                .isEqualTo(Duration.ofMillis(20));
+        assertThat(backoff.next(Duration.ZERO)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void differentWorkers_doNotPollInLockStep() {
+        IdleBackoff a = new IdleBackoff(INITIAL, new SplittableRandom(11));
+        IdleBackoff b = new IdleBackoff(INITIAL, new SplittableRandom(12));
+
+        boolean diverged = false;
+        for (int i = 0; i < 10 && !diverged; i++) {
+            diverged = !a.next(CEILING).equals(b.next(CEILING));
+        }
+
+        assertThat(diverged)
+                .as("jitter must spread workers that went idle at the same moment")
+                .isTrue();
+    }
+}
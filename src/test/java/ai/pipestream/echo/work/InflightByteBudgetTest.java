@@ -0,0 +1,105 @@
+package ai.pipestream.echo.work;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InflightByteBudgetTest {
+
+    @Test
+    void smallPayloads_areAdmittedSideBySide() throws Exception {
+        InflightByteBudget budget = new InflightByteBudget(10_000);
+
+        for (int i = 0; i < 8; i++) {
+            budget.reserve().admit(1_000);
+        }
+
+        assertThat(budget.inflightBytes()).isEqualTo(8_000);
+    }
+
+    @Test
+    void oversizePayload_isAdmittedWhenNothingElseIsInFlight() throws Exception {
+        InflightByteBudget budget = new InflightByteBudget(1_000);
+
+        InflightByteBudget.Reservation monster = budget.reserve();
+        monster.admit(5_000);
+
+        assertThat(budget.inflightBytes())
+                .as("a single payload over budget must not wedge the loop")
+                .isEqualTo(5_000);
+        monster.release();
+        assertThat(budget.inflightBytes()).isZero();
+    }
+
+    @Test
+    @Timeout(10)
+    void pull_waitsUntilLargePayloadIsReleased() throws Exception {
+        InflightByteBudget budget = new InflightByteBudget(1_000);
+        InflightByteBudget.Reservation large = budget.reserve();
+        large.admit(900);
+
+        CompletableFuture<InflightByteBudget.Reservation> next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return budget.reserve();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Thread.sleep(100);
+        assertThat(next.isDone())
+                .as("estimated next payload (~180 bytes) must not fit beside 900 in-flight bytes")
+                .isFalse();
+
+        large.release();
+        assertThat(next.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void batchedPull_accumulatesAndDrains() throws Exception {
+        InflightByteBudget budget = new InflightByteBudget(10_000);
+        InflightByteBudget.Reservation batch = budget.reserve();
+
+        batch.admit(1_000);
+        batch.admit(2_000);
+        assertThat(budget.inflightBytes()).isEqualTo(3_000);
+
+        batch.drain();
+        assertThat(budget.inflightBytes()).isZero();
+    }
+
+    @Test
+    void batchedPull_reportsWhenAnotherUnitWouldCrossTheBudget() throws Exception {
+        InflightByteBudget budget = new InflightByteBudget(1_000);
+        InflightByteBudget.Reservation batch = budget.reserve();
+
+        batch.admit(400);
+        assertThat(batch.roomForAnother())
+                .as("400 held plus an ~80 byte estimate fits 1000")
+                .isTrue();
+
+        batch.admit(500);
+        assertThat(batch.roomForAnother())
+                .as("900 held plus an ~160 byte estimate must not get more credit")
+                .isFalse();
+
+        batch.drain();
+        assertThat(batch.roomForAnother()).isTrue();
+    }
+
+    @Test
+    void release_isIdempotent() throws Exception {
+        InflightByteBudget budget = new InflightByteBudget(1_000);
+        InflightByteBudget.Reservation reservation = budget.reserve();
+        reservation.admit(400);
+
+        reservation.release();
+        reservation.release();
+
+        assertThat(budget.inflightBytes()).isZero();
+    }
+}
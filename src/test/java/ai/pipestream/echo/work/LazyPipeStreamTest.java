@@ -0,0 +1,55 @@
+package ai.pipestream.echo.work;
+
+import ai.pipestream.data.v1.PipeDoc;
+import ai.pipestream.data.v1.PipeStream;
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LazyPipeStreamTest {
+
+    private static final PipeStream STREAM = PipeStream.newBuilder()
+            .setStreamId("s1")
+            .setDocument(PipeDoc.newBuilder().setDocId("d1").build())
+            .build();
+
+    @Test
+    void headers_decodeWithoutParsingDocument() throws Exception {
+        LazyPipeStream view = LazyPipeStream.of(Any.pack(STREAM));
+
+        assertThat(view.streamId()).isEqualTo("s1");
+        assertThat(view.docId()).isEqualTo("d1");
+        assertThat(view.stringField("stream_id")).isEqualTo("s1");
+        assertThat(view.document())
+                .as("document must be exposed as its serialized bytes")
+                .isEqualTo(STREAM.getDocument().toByteString());
+    }
+
+    @Test
+    void parse_materializesTheSameMessage() throws Exception {
+        LazyPipeStream view = LazyPipeStream.of(STREAM.toByteString());
+
+        assertThat(view.parse()).isEqualTo(STREAM);
+        assertThat(view.bytes()).isEqualTo(STREAM.toByteString());
+    }
+
+    @Test
+    void missingFields_readAsProtoDefaults() throws Exception {
+        LazyPipeStream view = LazyPipeStream.of(PipeStream.getDefaultInstance().toByteString());
+
+        assertThat(view.streamId()).isEmpty();
+        assertThat(view.docId()).isEmpty();
+        assertThat(view.document().isEmpty()).isTrue();
+    }
+
+    @Test
+    void nonPipeStreamPayload_isRejected() {
+        Any other = Any.pack(PipeDoc.newBuilder().setDocId("d1").build());
+
+        assertThatThrownBy(() -> LazyPipeStream.of(other))
+                .isInstanceOf(InvalidProtocolBufferException.class);
+    }
+}
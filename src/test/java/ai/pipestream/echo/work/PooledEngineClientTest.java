@@ -0,0 +1,128 @@
+package ai.pipestream.echo.work;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledEngineClientTest {
+
+    private final String serverName = "pooled-engine-" + UUID.randomUUID();
+    private final List<ManagedChannel> created = new ArrayList<>();
+    private PooledEngineClient pool;
+
+    private ManagedChannel newChannel() {
+        ManagedChannel channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        created.add(channel);
+        return channel;
+    }
+
+    @AfterEach
+    void close() {
+        if (pool != null) {
+            pool.close();
+        }
+        created.forEach(ManagedChannel::shutdownNow);
+    }
+
+    @Test
+    void stubs_areSpreadAcrossEveryChannel() {
+        pool = new PooledEngineClient(3, this::newChannel);
+
+        Set<Object> used = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            used.add(pool.stub().getChannel());
+        }
+
+        assertThat(used)
+                .as("round-robin must hand out every pooled channel")
+                .hasSize(3);
+    }
+
+    @Test
+    void powerOfTwo_steersNewStreamsAwayFromTheBusierChannel() {
+        pool = new PooledEngineClient(2, this::newChannel, PooledEngineClient.Selection.POWER_OF_TWO);
+        for (int i = 0; i < 5; i++) {
+            pool.load(0).callStarted();
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(pool.selectSlot())
+                    .as("with two channels both are sampled; the idle one must always win")
+                    .isEqualTo(1);
+        }
+    }
+
+    @Test
+    void engineLoad_costTracksLatencyTimesOpenStreams() {
+        EngineLoad load = new EngineLoad();
+        assertThat(load.cost()).isZero();
+
+        load.callStarted();
+        load.onAckRoundTrip(1_000);
+
+        assertThat(load.cost())
+                .as("cost is the smoothed ack round trip times open streams plus one")
+                .isEqualTo(2_000.0);
+    }
+
+    @Test
+    void engineLoad_withoutAckRoundTripIsComparedByOpenStreams() {
+        EngineLoad measured = new EngineLoad();
+        measured.callStarted();
+        measured.onAckRoundTrip(1_000_000);
+        EngineLoad unconfirmed = new EngineLoad();
+        for (int i = 0; i < 3; i++) {
+            unconfirmed.callStarted();
+        }
+
+        assertThat(unconfirmed.notBusierThan(measured))
+                .as("a channel with no confirmed ack but more open streams must not win on its tiny cost")
+                .isFalse();
+        assertThat(measured.notBusierThan(unconfirmed))
+                .as("the measured channel with fewer open streams must win")
+                .isTrue();
+    }
+
+    @Test
+    void recycle_reopensTheSlotThroughTheSlotAwareFactory() {
+        List<Integer> opened = new ArrayList<>();
+        pool = new PooledEngineClient(3, slot -> {
+            opened.add(slot);
+            return newChannel();
+        }, PooledEngineClient.Selection.ROUND_ROBIN, List.of());
+
+        pool.recycle(1);
+
+        assertThat(opened)
+                .as("each slot is opened once, and a recycled slot is reopened under its own index")
+                .containsExactly(0, 1, 2, 1);
+        assertThat(created.get(1).isShutdown()).isTrue();
+    }
+
+    @Test
+    void reconnect_recyclesOnlyTheCallersChannel() {
+        pool = new PooledEngineClient(3, this::newChannel);
+        ManagedChannel mine = (ManagedChannel) pool.stub().getChannel();
+
+        pool.reconnect();
+
+        assertThat(mine.isShutdown())
+                .as("the channel this worker last used must be recycled")
+                .isTrue();
+        assertThat(created)
+                .as("exactly one replacement channel must be opened")
+                .hasSize(4);
+        assertThat(created.subList(0, 3).stream().filter(ManagedChannel::isShutdown))
+                .as("healthy channels used by other workers must be left alone")
+                .containsExactly(mine);
+    }
+}
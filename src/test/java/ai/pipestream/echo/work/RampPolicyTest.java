@@ -0,0 +1,75 @@
+package ai.pipestream.echo.work;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RampPolicyTest {
+
+    @Test
+    void shortStreak_growsOneWorkerAtATime() {
+        RampPolicy ramp = new RampPolicy(true, 3, 2.0, Duration.ofSeconds(1));
+
+        assertThat(ramp.onWork(4)).isEqualTo(1);
+        assertThat(ramp.onWork(5))
+                .as("below the streak threshold growth stays linear")
+                .isEqualTo(1);
+    }
+
+    @Test
+    void sustainedStreak_growsMultiplicatively() {
+        RampPolicy ramp = new RampPolicy(true, 3, 2.0, Duration.ofSeconds(1));
+        ramp.onWork(1);
+        ramp.onWork(2);
+
+        assertThat(ramp.onWork(4))
+                .as("past the threshold a growth factor of 2 must double the pool")
+                .isEqualTo(4);
+    }
+
+    @Test
+    void idlePull_endsStreak() {
+        RampPolicy ramp = new RampPolicy(true, 2, 2.0, Duration.ofSeconds(1));
+        ramp.onWork(1);
+        ramp.onIdle();
+
+        assertThat(ramp.onWork(8))
+                .as("an empty pull must reset the streak back to linear growth")
+                .isEqualTo(1);
+    }
+
+    @Test
+    void retirements_arePaced() {
+        RampPolicy ramp = new RampPolicy(true, 3, 2.0, Duration.ofMinutes(1));
+
+        assertThat(ramp.retire(() -> true)).as("first retirement is allowed").isTrue();
+        assertThat(ramp.retire(() -> true))
+                .as("a second worker must not retire within the retire interval")
+                .isFalse();
+    }
+
+    @Test
+    void retireSlot_isKeptOnlyWhenTheWorkerLeaves() {
+        RampPolicy ramp = new RampPolicy(true, 3, 2.0, Duration.ofMinutes(1));
+
+        assertThat(ramp.retire(() -> false))
+                .as("a worker that could not leave (pool at its floor) does not retire")
+                .isFalse();
+        assertThat(ramp.retire(() -> true))
+                .as("the failed attempt must not have used up the retire slot")
+                .isTrue();
+    }
+
+    @Test
+    void linear_neverPacesOrJumps() {
+        RampPolicy ramp = RampPolicy.linear();
+        for (int i = 0; i < 10; i++) {
+            assertThat(ramp.onWork(8)).isEqualTo(1);
+        }
+
+        assertThat(ramp.retire(() -> true)).isTrue();
+        assertThat(ramp.retire(() -> true)).isTrue();
+    }
+}
@@ -0,0 +1,49 @@
+package ai.pipestream.echo.work;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkStageTimersTest {
+
+    @Test
+    void record_landsOnTheStageTimerTaggedWithModule() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WorkStageTimers timers = new WorkStageTimers(registry, "echo");
+
+        timers.record(WorkStageTimers.Stage.PROCESS, 2_000_000);
+        timers.record(WorkStageTimers.Stage.PROCESS, 4_000_000);
+        timers.record(WorkStageTimers.Stage.CONFIRM, 9_000_000);
+
+        Timer process = registry.get("echo.worker.stage")
+                .tag("module", "echo")
+                .tag("stage", "process")
+                .timer();
+        assertThat(process.count()).isEqualTo(2);
+        assertThat(process.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(6.0);
+        assertThat(registry.get("echo.worker.stage").tag("stage", "confirm").timer().count())
+                .as("each stage must keep its own timer")
+                .isEqualTo(1);
+    }
+
+    @Test
+    void everyStage_isRegisteredUpFront() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new WorkStageTimers(registry, "echo");
+
+        for (String stage : new String[] {"queue", "process", "ack_send", "confirm"}) {
+            assertThat(registry.find("echo.worker.stage").tag("stage", stage).timer())
+                    .as("stage %s must be exported before any work arrives", stage)
+                    .isNotNull();
+        }
+    }
+
+    @Test
+    void disabled_acceptsRecordsWithoutARegistry() {
+        WorkStageTimers.disabled().record(WorkStageTimers.Stage.QUEUE, 1_000);
+    }
+}